@@ -0,0 +1,130 @@
+package com.owen.tab;
+
+/**
+ * Watches the frames a layout animates on and lowers the quality of its animations when they
+ * miss frames, one {@link TvTabLayout#getAnimationQuality() level} at a time. The quality is
+ * raised again once frames have been on time for a while.
+ *
+ * <p>Frames are judged in windows of {@link #WINDOW_SIZE} consecutive animation frames. A window
+ * with too many late frames lowers the level; {@link #RECOVERY_WINDOWS} good windows in a row
+ * raise it. The governor only sees the frame times it is given, so it can be driven by a fake
+ * {@link FrameClock}.</p>
+ */
+class AnimationQualityGovernor {
+
+    static final int WINDOW_SIZE = 30;
+    static final int RECOVERY_WINDOWS = 3;
+    // At the lowest quality nothing animates, so after this many skipped animations the next
+    // level up is tried again
+    static final int PROBE_SKIPPED_ANIMATIONS = 20;
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+    // A frame taking longer than this missed at least one vsync
+    private static final float LATE_FRAME_FACTOR = 1.5f;
+    // Share of late frames in a window which lowers, or still allows raising, the quality
+    private static final float DEGRADE_LATE_FRACTION = 0.25f;
+    private static final float RECOVER_LATE_FRACTION = 0.05f;
+    // Longer gaps are pauses between animations rather than slow frames
+    private static final long MAX_FRAME_GAP_NANOS = 250000000L;
+
+    private final int mMaxLevel;
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private int mLevel;
+
+    private long mLastFrameTimeNanos = -1;
+    private int mWindowFrames;
+    private int mWindowLateFrames;
+    private int mGoodWindows;
+    private int mSkippedAnimations;
+
+    /**
+     * @param maxLevel the lowest quality the governor may step down to
+     */
+    AnimationQualityGovernor(int maxLevel) {
+        mMaxLevel = maxLevel;
+    }
+
+    int getLevel() {
+        return mLevel;
+    }
+
+    void setFrameIntervalNanos(long frameIntervalNanos) {
+        mFrameIntervalNanos = frameIntervalNanos;
+    }
+
+    /**
+     * Called for every frame an animation ran on.
+     *
+     * @return true if the level changed
+     */
+    boolean onFrame(long frameTimeNanos) {
+        final long lastFrameTimeNanos = mLastFrameTimeNanos;
+        mLastFrameTimeNanos = frameTimeNanos;
+        if (lastFrameTimeNanos < 0) {
+            return false;
+        }
+        final long duration = frameTimeNanos - lastFrameTimeNanos;
+        if (duration <= 0 || duration > MAX_FRAME_GAP_NANOS) {
+            return false;
+        }
+        mWindowFrames++;
+        if (duration > mFrameIntervalNanos * LATE_FRAME_FACTOR) {
+            mWindowLateFrames++;
+        }
+        if (mWindowFrames < WINDOW_SIZE) {
+            return false;
+        }
+
+        final float lateFraction = (float) mWindowLateFrames / mWindowFrames;
+        mWindowFrames = 0;
+        mWindowLateFrames = 0;
+        if (lateFraction >= DEGRADE_LATE_FRACTION) {
+            mGoodWindows = 0;
+            if (mLevel < mMaxLevel) {
+                mLevel++;
+                mSkippedAnimations = 0;
+                return true;
+            }
+        } else if (lateFraction <= RECOVER_LATE_FRACTION) {
+            if (mLevel > 0 && ++mGoodWindows >= RECOVERY_WINDOWS) {
+                mGoodWindows = 0;
+                mLevel--;
+                return true;
+            }
+        } else {
+            mGoodWindows = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Called when a change was applied without animating because of the current level.
+     *
+     * @return true if the level changed
+     */
+    boolean onAnimationSkipped() {
+        if (mLevel == 0 || mLevel < mMaxLevel
+                || ++mSkippedAnimations < PROBE_SKIPPED_ANIMATIONS) {
+            return false;
+        }
+        mSkippedAnimations = 0;
+        mLevel--;
+        return true;
+    }
+
+    /**
+     * Called when no animation is running, the next frame does not follow the previous one.
+     */
+    void onIdle() {
+        mLastFrameTimeNanos = -1;
+    }
+
+    void reset() {
+        mLevel = 0;
+        mLastFrameTimeNanos = -1;
+        mWindowFrames = 0;
+        mWindowLateFrames = 0;
+        mGoodWindows = 0;
+        mSkippedAnimations = 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.owen.tab;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+
+/**
+ * Measures and draws the tabs of a {@link TvTabLayout} in flat render mode, straight onto the
+ * canvas of its strip instead of through a view per tab. A flat tab shows its icon above its
+ * label, on a single line ellipsized at the maximum tab width.
+ *
+ * <p>The strip hands its tab style over before each measure or draw pass, and keeps the
+ * geometry of the tabs and the cached label layouts itself.</p>
+ *
+ * @see TvTabLayout#setTabFlatRenderEnabled(boolean)
+ */
+final class FlatTabRenderer {
+
+    static final int ICON_SIZE = 24; // dps
+
+    private static final int[] SELECTED_STATE_SET = {android.R.attr.state_selected};
+    private static final int[] ACTIVATED_STATE_SET = {android.R.attr.state_activated};
+    private static final int[] DEFAULT_STATE_SET = {};
+
+    private final Context mContext;
+    private final int mBackgroundResId;
+    private final int mIconSize;
+    private final int mIconTextGap;
+
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+    private Drawable mBackground;
+    private ColorStateList mDefaultTextColors;
+
+    private TextMeasureCache mTextMeasureCache = TextMeasureCache.getDefault();
+    private ColorStateList mTextColors;
+    private int mPaddingStart;
+    private int mPaddingTop;
+    private int mPaddingEnd;
+    private int mPaddingBottom;
+    private int mMinWidth;
+    private int mMaxWidth;
+    private int mGravity;
+    private boolean mFill;
+    private float mSelectedScale;
+
+    /**
+     * @param iconSize the size of the icons, in pixels
+     * @param iconTextGap the space between the icon and the label, in pixels
+     */
+    FlatTabRenderer(@NonNull Context context, @DrawableRes int backgroundResId, int iconSize,
+            int iconTextGap) {
+        mContext = context;
+        mBackgroundResId = backgroundResId;
+        mIconSize = iconSize;
+        mIconTextGap = iconTextGap;
+    }
+
+    void setTextStyle(float textSize, @Nullable ColorStateList textColors,
+            @NonNull TextMeasureCache textMeasureCache) {
+        mTextPaint.setTextSize(textSize);
+        mTextColors = textColors;
+        mTextMeasureCache = textMeasureCache;
+    }
+
+    void setTabPadding(int start, int top, int end, int bottom) {
+        mPaddingStart = start;
+        mPaddingTop = top;
+        mPaddingEnd = end;
+        mPaddingBottom = bottom;
+    }
+
+    void setTabWidthLimits(int minWidth, int maxWidth) {
+        mMinWidth = minWidth;
+        mMaxWidth = maxWidth;
+    }
+
+    /**
+     * @param gravity one of the {@code GRAVITY_*} constants of {@link TvTabLayout}
+     * @param fill whether the tabs take the whole height of the strip
+     * @param selectedScale the scale of the highlighted tab, or 0 to leave it unscaled
+     */
+    void setTabGravity(int gravity, boolean fill, float selectedScale) {
+        mGravity = gravity;
+        mFill = fill;
+        mSelectedScale = selectedScale;
+    }
+
+    /**
+     * @return the width labels are ellipsized to
+     */
+    int getMaxTextWidth() {
+        return Math.max(0, mMaxWidth - mPaddingStart - mPaddingEnd);
+    }
+
+    /**
+     * Measures the width of {@code tab} from the cached metrics of its label, without building
+     * the layout it is drawn with.
+     */
+    int measureTabWidth(@NonNull TvTabLayout.Tab tab) {
+        final CharSequence text = tab.getText();
+        int contentWidth = tab.getIcon() != null ? mIconSize : 0;
+        if (!TextUtils.isEmpty(text)) {
+            final float textWidth = mTextMeasureCache.measure(text, mTextPaint,
+                    Integer.MAX_VALUE).width;
+            // Longer labels are ellipsized to the maximum width
+            contentWidth = Math.max(contentWidth,
+                    Math.min(getMaxTextWidth(), (int) Math.ceil(textWidth)));
+        }
+        return Math.min(mMaxWidth, Math.max(mMinWidth,
+                contentWidth + mPaddingStart + mPaddingEnd));
+    }
+
+    /**
+     * @return the height of {@code tab}, padding included
+     */
+    int getTabHeight(@NonNull TvTabLayout.Tab tab) {
+        return mPaddingTop + mPaddingBottom
+                + getContentHeight(tab, !TextUtils.isEmpty(tab.getText()));
+    }
+
+    /**
+     * Builds the single line label of a tab, or returns null if {@code text} is empty.
+     */
+    @Nullable
+    Layout createTextLayout(@Nullable CharSequence text) {
+        if (TextUtils.isEmpty(text)) {
+            return null;
+        }
+        final int maxTextWidth = getMaxTextWidth();
+        final TextMeasureCache.Metrics metrics = mTextMeasureCache.measure(text, mTextPaint,
+                Integer.MAX_VALUE);
+        final CharSequence label;
+        final int width;
+        if (metrics.width <= maxTextWidth) {
+            label = text;
+            width = (int) Math.ceil(metrics.width);
+        } else {
+            label = TextUtils.ellipsize(text, mTextPaint, maxTextWidth, TextUtils.TruncateAt.END);
+            width = (int) Math.ceil(Layout.getDesiredWidth(label, mTextPaint));
+        }
+        return new StaticLayout(label, mTextPaint, width, Layout.Alignment.ALIGN_CENTER, 1f, 0f,
+                false);
+    }
+
+    /**
+     * Draws {@code tab} between {@code left} and {@code left + width}, within the vertical
+     * bounds of the strip content.
+     *
+     * @param textLayout the label of the tab, from {@link #createTextLayout(CharSequence)}
+     */
+    void drawTab(Canvas canvas, @NonNull TvTabLayout.Tab tab, @Nullable Layout textLayout,
+            int left, int width, int contentTop, int contentBottom, boolean highlighted,
+            boolean focused) {
+        final int[] state = !highlighted ? DEFAULT_STATE_SET
+                : focused ? SELECTED_STATE_SET : ACTIVATED_STATE_SET;
+        final Drawable icon = tab.getIcon();
+        final int contentHeight = getContentHeight(tab, textLayout != null);
+        final int top;
+        final int height;
+        if (mFill) {
+            top = contentTop;
+            height = contentBottom - contentTop;
+        } else {
+            height = contentHeight + mPaddingTop + mPaddingBottom;
+            switch (mGravity) {
+                case TvTabLayout.GRAVITY_TOP:
+                    top = contentTop;
+                    break;
+                case TvTabLayout.GRAVITY_BOTTOM:
+                    top = contentBottom - height;
+                    break;
+                default:
+                    top = contentTop + (contentBottom - contentTop - height) / 2;
+                    break;
+            }
+        }
+
+        canvas.save();
+        if (highlighted && mSelectedScale > 0) {
+            canvas.scale(mSelectedScale, mSelectedScale, left + width / 2f, top + height / 2f);
+        }
+
+        final Drawable background = getBackground();
+        if (background != null) {
+            background.setState(state);
+            background.setBounds(left, top, left + width, top + height);
+            background.draw(canvas);
+        }
+
+        final int centerX = left + mPaddingStart + (width - mPaddingStart - mPaddingEnd) / 2;
+        int y = top + mPaddingTop + (height - mPaddingTop - mPaddingBottom - contentHeight) / 2;
+        if (icon != null) {
+            icon.setBounds(centerX - mIconSize / 2, y, centerX - mIconSize / 2 + mIconSize,
+                    y + mIconSize);
+            icon.draw(canvas);
+            y += mIconSize + mIconTextGap;
+        }
+        if (textLayout != null) {
+            // The layouts share the paint, so the color is set right before drawing
+            mTextPaint.setColor(getTextColor(state));
+            canvas.translate(centerX - textLayout.getWidth() / 2f, y);
+            textLayout.draw(canvas);
+        }
+        canvas.restore();
+    }
+
+    private int getContentHeight(@NonNull TvTabLayout.Tab tab, boolean hasText) {
+        int height = tab.getIcon() != null ? mIconSize : 0;
+        if (hasText) {
+            // A single line label without padding, like the StaticLayout it is drawn with
+            mTextPaint.getFontMetricsInt(mFontMetrics);
+            height += (height > 0 ? mIconTextGap : 0) + mFontMetrics.descent - mFontMetrics.ascent;
+        }
+        return height;
+    }
+
+    @Nullable
+    private Drawable getBackground() {
+        if (mBackground == null && mBackgroundResId != 0) {
+            mBackground = mContext.getResources().getDrawable(mBackgroundResId);
+        }
+        return mBackground;
+    }
+
+    private int getTextColor(int[] state) {
+        ColorStateList colors = mTextColors;
+        if (colors == null) {
+            if (mDefaultTextColors == null) {
+                final TypedArray a = mContext.obtainStyledAttributes(
+                        new int[]{android.R.attr.textColorPrimary});
+                mDefaultTextColors = a.getColorStateList(0);
+                a.recycle();
+            }
+            colors = mDefaultTextColors;
+        }
+        return colors != null ? colors.getColorForState(state, colors.getDefaultColor())
+                : Color.BLACK;
+    }
+}
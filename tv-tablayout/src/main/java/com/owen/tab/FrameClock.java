@@ -0,0 +1,88 @@
+package com.owen.tab;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Source of display frames for the animations of this library. The default clock is backed by
+ * the {@link Choreographer}, so every animation advances once per vsync and all of them advance
+ * in the same frame. Animations take the clock as a constructor argument so that a fake clock
+ * can step frames deterministically.
+ */
+abstract class FrameClock {
+
+    interface FrameCallback {
+        /**
+         * Called when a new display frame is being rendered.
+         *
+         * @param frameTimeNanos The time at which the frame started, in the
+         *                       {@link System#nanoTime()} time base.
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static FrameClock sDefault;
+
+    /**
+     * Returns the clock of the main thread. Must be called on the main thread.
+     */
+    static FrameClock getDefault() {
+        if (sDefault == null) {
+            sDefault = new ChoreographerFrameClock();
+        }
+        return sDefault;
+    }
+
+    /**
+     * Runs {@code callback} once on the next frame.
+     */
+    abstract void postFrameCallback(FrameCallback callback);
+
+    abstract void removeFrameCallback(FrameCallback callback);
+
+    /**
+     * Posts a single {@link Choreographer.FrameCallback} per frame no matter how many callbacks
+     * are pending, and dispatches them in the order they were posted.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerFrameClock extends FrameClock
+            implements Choreographer.FrameCallback {
+
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+        private ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+        private ArrayList<FrameCallback> mDispatchingCallbacks = new ArrayList<>();
+        private boolean mFramePosted;
+
+        @Override
+        void postFrameCallback(FrameCallback callback) {
+            if (!mCallbacks.contains(callback)) {
+                mCallbacks.add(callback);
+            }
+            if (!mFramePosted) {
+                mFramePosted = true;
+                mChoreographer.postFrameCallback(this);
+            }
+        }
+
+        @Override
+        void removeFrameCallback(FrameCallback callback) {
+            mCallbacks.remove(callback);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFramePosted = false;
+            // Swap the lists, callbacks posted while dispatching run on the next frame
+            final ArrayList<FrameCallback> callbacks = mCallbacks;
+            mCallbacks = mDispatchingCallbacks;
+            mDispatchingCallbacks = callbacks;
+            for (int i = 0, z = callbacks.size(); i < z; i++) {
+                callbacks.get(i).doFrame(frameTimeNanos);
+            }
+            callbacks.clear();
+        }
+    }
+}
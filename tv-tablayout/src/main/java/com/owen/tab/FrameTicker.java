@@ -0,0 +1,101 @@
+package com.owen.tab;
+
+import android.graphics.Rect;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * The frame clock of a single {@link TvTabLayout}. The scroll, indicator and tab scale
+ * animations of the layout all run on it, so they advance together in one callback of the
+ * shared {@link FrameClock}. Every layout on screen chains onto the same parent clock, so they
+ * share a single {@link android.view.Choreographer} callback as well.
+ *
+ * <p>Only the indicator invalidates through {@link #invalidateHost(int, int, int, int)}, so
+ * its invalidations are merged into one per frame. Scrolling and the tab views invalidate on
+ * their own as usual.</p>
+ */
+class FrameTicker extends FrameClock implements FrameClock.FrameCallback {
+
+    private final FrameClock mParent;
+    private final View mHost;
+
+    private ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+    private ArrayList<FrameCallback> mDispatchingCallbacks = new ArrayList<>();
+    private boolean mFramePosted;
+    private boolean mDispatching;
+    // Union of the areas invalidated during the current frame
+    private final Rect mPendingDirty = new Rect();
+    private AnimationQualityGovernor mGovernor;
+
+    FrameTicker(FrameClock parent, View host) {
+        mParent = parent;
+        mHost = host;
+    }
+
+    @Override
+    void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+        if (!mFramePosted) {
+            mFramePosted = true;
+            mParent.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /**
+     * Set the governor told about the frames the animations run on.
+     */
+    void setGovernor(AnimationQualityGovernor governor) {
+        mGovernor = governor;
+    }
+
+    /**
+     * Invalidates an area of the host. Areas invalidated while a frame is being dispatched are
+     * merged into their union, which is invalidated once the frame has been dispatched.
+     */
+    void invalidateHost(int left, int top, int right, int bottom) {
+        if (mDispatching) {
+            mPendingDirty.union(left, top, right, bottom);
+        } else {
+            ViewCompat.postInvalidateOnAnimation(mHost, left, top, right, bottom);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFramePosted = false;
+        if (mGovernor != null) {
+            mGovernor.onFrame(frameTimeNanos);
+        }
+        mDispatching = true;
+        // Swap the lists, callbacks posted while dispatching run on the next frame
+        final ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mDispatchingCallbacks;
+        mDispatchingCallbacks = callbacks;
+        try {
+            for (int i = 0, z = callbacks.size(); i < z; i++) {
+                callbacks.get(i).doFrame(frameTimeNanos);
+            }
+        } finally {
+            callbacks.clear();
+            mDispatching = false;
+        }
+        if (!mPendingDirty.isEmpty()) {
+            ViewCompat.postInvalidateOnAnimation(mHost, mPendingDirty.left, mPendingDirty.top,
+                    mPendingDirty.right, mPendingDirty.bottom);
+        }
+        mPendingDirty.setEmpty();
+        if (mGovernor != null && !mFramePosted) {
+            // Every animation has finished
+            mGovernor.onIdle();
+        }
+    }
+}
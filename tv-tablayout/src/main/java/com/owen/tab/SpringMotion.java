@@ -0,0 +1,145 @@
+package com.owen.tab;
+
+/**
+ * A damped spring which moves a single value towards a target, one display frame at a time.
+ * Unlike a {@link ValueAnimatorCompat}, a running spring can be given a new target at any time:
+ * it keeps its current value and velocity and simply heads for the new destination, so fast
+ * repeated retargeting results in continuous motion instead of restarts.
+ */
+class SpringMotion implements FrameClock.FrameCallback {
+
+    interface Listener {
+        /**
+         * Called once per frame after the value has moved.
+         */
+        void onSpringUpdate(SpringMotion spring);
+
+        /**
+         * Called when the spring has settled on its target.
+         */
+        void onSpringAtRest(SpringMotion spring);
+    }
+
+    /**
+     * Critically damped at this stiffness, a move of a tab or two comes to rest in about 300ms,
+     * in line with the timed animations. A move across a whole screen takes under 400ms.
+     */
+    private static final float STIFFNESS = 1200f;
+    private static final float DAMPING_RATIO = 1f;
+    private static final float DAMPING = 2f * DAMPING_RATIO * (float) Math.sqrt(STIFFNESS);
+
+    private static final float NANOS_PER_SECOND = 1000000000f;
+    // Longer frames are integrated in steps of this size to keep the integration stable
+    private static final float MAX_STEP_SECONDS = 1f / 240f;
+    // Frames longer than this (e.g. after a stall) are clamped so that the spring does not jump
+    private static final float MAX_FRAME_SECONDS = 1f / 15f;
+    private static final float REST_DISTANCE = 0.5f;
+    private static final float REST_VELOCITY = 5f;
+
+    private final FrameClock mFrameClock;
+    private final Listener mListener;
+
+    private float mValue;
+    private float mVelocity;
+    private float mTarget;
+    private long mLastFrameTimeNanos = -1;
+    private boolean mIsRunning;
+
+    SpringMotion(FrameClock frameClock, Listener listener) {
+        mFrameClock = frameClock;
+        mListener = listener;
+    }
+
+    /**
+     * Jumps to {@code value} and stops any motion.
+     */
+    void setValue(float value) {
+        cancel();
+        mValue = mTarget = value;
+        mVelocity = 0f;
+    }
+
+    float getValue() {
+        return mValue;
+    }
+
+    boolean isRunning() {
+        return mIsRunning;
+    }
+
+    /**
+     * Moves towards {@code target}. If the spring is already moving, only its destination
+     * changes and the current velocity is kept.
+     */
+    void animateTo(float target) {
+        mTarget = target;
+        if (!mIsRunning) {
+            if (isAtRest()) {
+                return;
+            }
+            mIsRunning = true;
+            mLastFrameTimeNanos = -1;
+            mFrameClock.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Stops the spring where it is.
+     */
+    void cancel() {
+        if (mIsRunning) {
+            mIsRunning = false;
+            mVelocity = 0f;
+            mFrameClock.removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mIsRunning) {
+            return;
+        }
+        if (mLastFrameTimeNanos < 0) {
+            // The first frame only gives us the time base
+            mLastFrameTimeNanos = frameTimeNanos;
+            mFrameClock.postFrameCallback(this);
+            return;
+        }
+
+        float remaining = Math.min((frameTimeNanos - mLastFrameTimeNanos) / NANOS_PER_SECOND,
+                MAX_FRAME_SECONDS);
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        while (remaining > 0f) {
+            final float step = Math.min(remaining, MAX_STEP_SECONDS);
+            // Semi-implicit Euler: update the velocity first, then move with the new velocity
+            final float acceleration = -STIFFNESS * (mValue - mTarget) - DAMPING * mVelocity;
+            mVelocity += acceleration * step;
+            mValue += mVelocity * step;
+            remaining -= step;
+        }
+
+        final boolean atRest = isAtRest();
+        if (atRest) {
+            mValue = mTarget;
+            mVelocity = 0f;
+            mIsRunning = false;
+        }
+
+        if (mListener != null) {
+            mListener.onSpringUpdate(this);
+        }
+
+        if (atRest) {
+            if (mListener != null) {
+                mListener.onSpringAtRest(this);
+            }
+        } else if (mIsRunning) {
+            mFrameClock.postFrameCallback(this);
+        }
+    }
+
+    private boolean isAtRest() {
+        return Math.abs(mValue - mTarget) < REST_DISTANCE && Math.abs(mVelocity) < REST_VELOCITY;
+    }
+}
@@ -0,0 +1,220 @@
+package com.owen.tab;
+
+/**
+ * The horizontal geometry of a row of tabs, kept in primitive arrays so that it can be queried
+ * without walking views, and for tabs which have no view at all.
+ *
+ * <p>Widths are stored in two Fenwick trees, one summing the known widths and one counting the
+ * tabs whose width is not known yet. Those are assumed to be as wide as the average known tab,
+ * so the left edge of a tab is {@code knownSum + unknownCount * estimate}. Hidden tabs have a
+ * known width of 0 and are left out of the average. Changing a width and
+ * the position/x lookups are O(log n). Inserting or removing tabs shifts the arrays and
+ * rebuilds the trees in O(n) on the next query, which is amortized over batched changes.</p>
+ */
+class TabGeometryIndex {
+
+    /**
+     * Width of a tab which has not been measured.
+     */
+    static final int UNKNOWN_WIDTH = -1;
+
+    private int[] mWidths = new int[16];
+    private int mSize;
+
+    // 1-based Fenwick trees over mWidths
+    private int[] mKnownWidthTree = new int[17];
+    private int[] mUnknownCountTree = new int[17];
+    private boolean mTreesDirty;
+
+    private int mKnownWidthSum;
+    private int mKnownWidthCount;
+    private int mZeroWidthCount;
+    private int mFallbackWidth;
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * Sets the width assumed for unmeasured tabs while no tab has been measured.
+     */
+    void setFallbackWidth(int width) {
+        mFallbackWidth = width;
+    }
+
+    /**
+     * @return the width assumed for tabs which have not been measured
+     */
+    int getEstimatedWidth() {
+        final int count = mKnownWidthCount - mZeroWidthCount;
+        return count > 0 ? mKnownWidthSum / count : mFallbackWidth;
+    }
+
+    boolean hasUnknownWidths() {
+        return mKnownWidthCount < mSize;
+    }
+
+    /**
+     * Inserts a tab of unknown width at {@code position}.
+     */
+    void insert(int position) {
+        if (mSize == mWidths.length) {
+            final int[] widths = new int[mWidths.length * 2];
+            System.arraycopy(mWidths, 0, widths, 0, mSize);
+            mWidths = widths;
+            mKnownWidthTree = new int[widths.length + 1];
+            mUnknownCountTree = new int[widths.length + 1];
+        }
+        System.arraycopy(mWidths, position, mWidths, position + 1, mSize - position);
+        mWidths[position] = UNKNOWN_WIDTH;
+        mSize++;
+        mTreesDirty = true;
+    }
+
+    void remove(int position, int count) {
+        for (int i = position; i < position + count; i++) {
+            forgetWidth(i);
+        }
+        System.arraycopy(mWidths, position + count, mWidths, position, mSize - position - count);
+        mSize -= count;
+        mTreesDirty = true;
+    }
+
+    void clear() {
+        mSize = 0;
+        mKnownWidthSum = mKnownWidthCount = mZeroWidthCount = 0;
+        mTreesDirty = true;
+    }
+
+    boolean isWidthKnown(int position) {
+        return mWidths[position] != UNKNOWN_WIDTH;
+    }
+
+    /**
+     * @return true if the width differs from the one assumed so far for this tab
+     */
+    boolean setWidth(int position, int width) {
+        final int oldWidth = mWidths[position];
+        if (oldWidth == width) {
+            return false;
+        }
+        final int assumedWidth = oldWidth != UNKNOWN_WIDTH ? oldWidth : getEstimatedWidth();
+        forgetWidth(position);
+        mWidths[position] = width;
+        mKnownWidthSum += width;
+        mKnownWidthCount++;
+        if (width == 0) {
+            mZeroWidthCount++;
+        }
+        if (!mTreesDirty) {
+            updateTrees(position, width - (oldWidth != UNKNOWN_WIDTH ? oldWidth : 0),
+                    oldWidth == UNKNOWN_WIDTH ? -1 : 0);
+        }
+        return assumedWidth != width;
+    }
+
+    /**
+     * Forgets the width of the tab at {@code position}, it is estimated until set again.
+     *
+     * @return true if the width was known
+     */
+    boolean invalidateWidth(int position) {
+        final int oldWidth = mWidths[position];
+        if (oldWidth == UNKNOWN_WIDTH) {
+            return false;
+        }
+        forgetWidth(position);
+        mWidths[position] = UNKNOWN_WIDTH;
+        if (!mTreesDirty) {
+            updateTrees(position, -oldWidth, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the left edge of the tab at {@code position}, relative to the first tab. A
+     * {@code position} of {@link #size()} gives the total width.
+     */
+    int getLeft(int position) {
+        ensureTrees();
+        int knownSum = 0;
+        int unknownCount = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            knownSum += mKnownWidthTree[i];
+            unknownCount += mUnknownCountTree[i];
+        }
+        return knownSum + unknownCount * getEstimatedWidth();
+    }
+
+    int getWidth(int position) {
+        final int width = mWidths[position];
+        return width != UNKNOWN_WIDTH ? width : getEstimatedWidth();
+    }
+
+    int getTotalWidth() {
+        return getLeft(mSize);
+    }
+
+    /**
+     * Returns the position of the tab which contains {@code x}, clamped to the existing tabs.
+     */
+    int findPositionAt(int x) {
+        if (mSize == 0) {
+            return 0;
+        }
+        ensureTrees();
+        final int estimatedWidth = getEstimatedWidth();
+        // Walk down the tree to the last position whose left edge is <= x
+        int position = 0;
+        int left = 0;
+        for (int step = Integer.highestOneBit(mSize); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next <= mSize) {
+                final int nextLeft = left + mKnownWidthTree[next]
+                        + mUnknownCountTree[next] * estimatedWidth;
+                if (nextLeft <= x) {
+                    position = next;
+                    left = nextLeft;
+                }
+            }
+        }
+        // position tabs end at or before x, so x lies in the tab at index position
+        return Math.max(0, Math.min(position, mSize - 1));
+    }
+
+    private void forgetWidth(int position) {
+        if (mWidths[position] != UNKNOWN_WIDTH) {
+            mKnownWidthSum -= mWidths[position];
+            mKnownWidthCount--;
+            if (mWidths[position] == 0) {
+                mZeroWidthCount--;
+            }
+        }
+    }
+
+    private void updateTrees(int position, int widthDelta, int unknownDelta) {
+        for (int i = position + 1; i <= mSize; i += i & -i) {
+            mKnownWidthTree[i] += widthDelta;
+            mUnknownCountTree[i] += unknownDelta;
+        }
+    }
+
+    private void ensureTrees() {
+        if (mTreesDirty) {
+            // Linear time construction, every node passes its sum on to its parent
+            for (int i = 1; i <= mSize; i++) {
+                final int width = mWidths[i - 1];
+                mKnownWidthTree[i] = width != UNKNOWN_WIDTH ? width : 0;
+                mUnknownCountTree[i] = width != UNKNOWN_WIDTH ? 0 : 1;
+            }
+            for (int i = 1; i <= mSize; i++) {
+                final int parent = i + (i & -i);
+                if (parent <= mSize) {
+                    mKnownWidthTree[parent] += mKnownWidthTree[i];
+                    mUnknownCountTree[parent] += mUnknownCountTree[i];
+                }
+            }
+            mTreesDirty = false;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.owen.tab;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads tab icons off the main thread. Icons are decoded on a worker pool, downsampled to the
+ * size of the icon view they are shown in, and kept in a memory bounded LRU cache keyed by
+ * their resource or URI and that size. A tab shows the placeholder until its icon is ready.
+ *
+ * <p>Resources which are not bitmaps, such as vector or state list drawables, can not be
+ * decoded up front and are loaded on the main thread when they are delivered.</p>
+ *
+ * @see TvTabLayout#setTabIconLoader(TabIconLoader)
+ */
+public class TabIconLoader {
+
+    private static final String TAG = "TabIconLoader";
+
+    private static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int DEFAULT_THREAD_COUNT = 2;
+
+    private static TabIconLoader sDefault;
+
+    /**
+     * Receives a loaded icon on the main thread.
+     */
+    interface Callback {
+        /**
+         * @param icon the icon, or null if it could not be loaded
+         */
+        void onIconLoaded(@Nullable Drawable icon);
+    }
+
+    /**
+     * A pending load, which can be cancelled until the icon was delivered.
+     */
+    static final class Request implements Runnable {
+        private final TabIconLoader mLoader;
+        private final Resources mResources;
+        private final Context mContext;
+        private final Key mKey;
+        private final Callback mCallback;
+        private volatile boolean mCancelled;
+        private Bitmap mBitmap;
+
+        private final Runnable mDeliverRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (!mCancelled) {
+                    mLoader.deliver(Request.this);
+                }
+            }
+        };
+
+        Request(TabIconLoader loader, Context context, Key key, Callback callback) {
+            mLoader = loader;
+            mContext = context;
+            mResources = context.getResources();
+            mKey = key;
+            mCallback = callback;
+        }
+
+        void cancel() {
+            mCancelled = true;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            mBitmap = mLoader.decode(this);
+            mLoader.mMainHandler.post(mDeliverRunnable);
+        }
+    }
+
+    static final class Key {
+        final int mResId;
+        final Uri mUri;
+        final int mWidth;
+        final int mHeight;
+        private final int mHashCode;
+
+        Key(int resId, Uri uri, int width, int height) {
+            mResId = resId;
+            mUri = uri;
+            mWidth = width;
+            mHeight = height;
+            int hashCode = uri != null ? uri.hashCode() : resId;
+            hashCode = 31 * hashCode + width;
+            mHashCode = 31 * hashCode + height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mResId == key.mResId
+                    && mWidth == key.mWidth
+                    && mHeight == key.mHeight
+                    && (mUri != null ? mUri.equals(key.mUri) : key.mUri == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+    private final LruCache<Key, Bitmap> mCache;
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private Drawable mPlaceholder;
+
+    /**
+     * Returns the loader shared by all layouts which were given no loader of their own but load
+     * icons from URIs.
+     */
+    public static synchronized TabIconLoader getDefault() {
+        if (sDefault == null) {
+            sDefault = new TabIconLoader(DEFAULT_MAX_BYTES, null);
+        }
+        return sDefault;
+    }
+
+    /**
+     * Returns the default loader if it has been created.
+     */
+    @Nullable
+    static synchronized TabIconLoader peekDefault() {
+        return sDefault;
+    }
+
+    /**
+     * @param maxBytes the maximum number of bytes the cached bitmaps may take
+     * @param executor the executor icons are decoded on, or null for a pool of background
+     *                 threads
+     */
+    public TabIconLoader(int maxBytes, @Nullable Executor executor) {
+        mCache = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mExecutor = executor != null ? executor : Executors.newFixedThreadPool(
+                DEFAULT_THREAD_COUNT, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull final Runnable r) {
+                        final Thread thread = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                r.run();
+                            }
+                        }, TAG);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Set the drawable shown while an icon is loading. Each tab gets a copy of it, made from
+     * its constant state.
+     */
+    public void setPlaceholder(@Nullable Drawable placeholder) {
+        mPlaceholder = placeholder;
+    }
+
+    @Nullable
+    public Drawable getPlaceholder() {
+        return mPlaceholder;
+    }
+
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * @return the number of bytes taken by the cached bitmaps
+     */
+    public int size() {
+        return mCache.size();
+    }
+
+    /**
+     * @return the maximum number of bytes the cached bitmaps may take
+     */
+    public int maxSize() {
+        return mCache.maxSize();
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Drops the least recently used icons until the cached bitmaps take at most
+     * {@code maxBytes}.
+     */
+    public void trimToSize(int maxBytes) {
+        mCache.trimToSize(maxBytes);
+    }
+
+    /**
+     * Loads the icon of {@code resId} at the given size. A cached icon is delivered right away,
+     * and null is returned.
+     */
+    @Nullable
+    Request load(@NonNull Context context, @DrawableRes int resId, int width, int height,
+            @NonNull Callback callback) {
+        return load(context, new Key(resId, null, width, height), callback);
+    }
+
+    /**
+     * Loads the icon at {@code uri} at the given size. A cached icon is delivered right away,
+     * and null is returned.
+     */
+    @Nullable
+    Request load(@NonNull Context context, @NonNull Uri uri, int width, int height,
+            @NonNull Callback callback) {
+        return load(context, new Key(0, uri, width, height), callback);
+    }
+
+    /**
+     * Returns a copy of the placeholder for a tab.
+     */
+    @Nullable
+    Drawable newPlaceholder(@NonNull Resources res) {
+        if (mPlaceholder == null) {
+            return null;
+        }
+        final Drawable.ConstantState state = mPlaceholder.getConstantState();
+        return state != null ? state.newDrawable(res) : mPlaceholder;
+    }
+
+    private Request load(Context context, Key key, Callback callback) {
+        final Bitmap bitmap = mCache.get(key);
+        if (bitmap != null) {
+            callback.onIconLoaded(new BitmapDrawable(context.getResources(), bitmap));
+            return null;
+        }
+        final Request request = new Request(this, context, key, callback);
+        mExecutor.execute(request);
+        return request;
+    }
+
+    private void deliver(Request request) {
+        final Key key = request.mKey;
+        Drawable icon = null;
+        if (request.mBitmap != null) {
+            mCache.put(key, request.mBitmap);
+            icon = new BitmapDrawable(request.mResources, request.mBitmap);
+        } else if (key.mUri == null) {
+            // Not a bitmap, let the resources inflate it
+            try {
+                icon = request.mResources.getDrawable(key.mResId);
+            } catch (Resources.NotFoundException e) {
+                Log.w(TAG, "Icon resource not found: " + key.mResId, e);
+            }
+        }
+        request.mCallback.onIconLoaded(icon);
+    }
+
+    /**
+     * Decodes the bitmap of a request, downsampled by the largest power of two which keeps it
+     * at least as large as the requested size. Runs on a worker thread.
+     */
+    private Bitmap decode(Request request) {
+        final Key key = request.mKey;
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        // Work on the pixels of the file, the drawable scales them for the screen density
+        options.inScaled = false;
+        try {
+            decodeStream(request, options);
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+            int sampleSize = 1;
+            while (options.outWidth / (sampleSize * 2) >= key.mWidth
+                    && options.outHeight / (sampleSize * 2) >= key.mHeight) {
+                sampleSize *= 2;
+            }
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = sampleSize;
+            return decodeStream(request, options);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unable to decode icon", e);
+            return null;
+        }
+    }
+
+    private static Bitmap decodeStream(Request request, BitmapFactory.Options options)
+            throws IOException {
+        final Key key = request.mKey;
+        if (key.mUri == null) {
+            return BitmapFactory.decodeResource(request.mResources, key.mResId, options);
+        }
+        final InputStream in = request.mContext.getContentResolver().openInputStream(key.mUri);
+        if (in == null) {
+            return null;
+        }
+        try {
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+}
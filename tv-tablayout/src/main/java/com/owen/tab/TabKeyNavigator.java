@@ -0,0 +1,254 @@
+package com.owen.tab;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.KeyEvent;
+import android.view.View;
+
+/**
+ * Moves the selection of a {@link TvTabLayout} with the D-pad and decides when a selection is
+ * committed. Held keys are coalesced into a highlight by the
+ * {@link TvTabLayout.KeyRepeatPolicy}, and selections made by key wait for the
+ * {@link TvTabLayout#setSelectionCommitPolicy(int) selection commit policy} before they are
+ * committed.
+ *
+ * <p>Must only be used from the main thread.</p>
+ */
+final class TabKeyNavigator {
+
+    private static final int DEFAULT_COMMIT_DELAY = 100;
+    private static final int DEFAULT_MIN_ADAPTIVE_COMMIT_DELAY = 50;
+    private static final int DEFAULT_MAX_ADAPTIVE_COMMIT_DELAY = 500;
+
+    /**
+     * The layout the navigator moves the selection of.
+     */
+    interface Callback {
+        int getSelectedTabPosition();
+
+        int getTabCount();
+
+        /**
+         * Selects the tab at {@code position}.
+         *
+         * @return false if there is no tab at {@code position}
+         */
+        boolean selectTab(int position);
+
+        /**
+         * Moves the highlight to the tab at {@code position}, without selecting it.
+         */
+        void moveHighlight(int position);
+
+        /**
+         * Reports {@code tab} as committed, if it is still selected.
+         */
+        void commitTab(@NonNull TvTabLayout.Tab tab);
+    }
+
+    private final View mView;
+    private final Callback mCallback;
+
+    private TvTabLayout.KeyRepeatPolicy mKeyRepeatPolicy;
+    // Position of the highlight while repeats are coalesced, otherwise INVALID_POSITION
+    private int mKeyRepeatPosition = TvTabLayout.Tab.INVALID_POSITION;
+    private int mKeyRepeatKeyCode;
+
+    private int mSelectionCommitPolicy = TvTabLayout.COMMIT_DEBOUNCE;
+    private int mSelectionCommitDelay = DEFAULT_COMMIT_DELAY;
+    private int mMinAdaptiveCommitDelay = DEFAULT_MIN_ADAPTIVE_COMMIT_DELAY;
+    private int mMaxAdaptiveCommitDelay = DEFAULT_MAX_ADAPTIVE_COMMIT_DELAY;
+    // Smoothed interval between fresh D-pad presses, -1 until one was observed
+    private float mKeyIntervalAverage = -1f;
+    private long mLastKeyDownTime = -1;
+    private TvTabLayout.Tab mPendingCommitTab;
+    // Set while a D-pad press changes the selection, only those selections wait to be committed
+    private boolean mSelectingByKey;
+
+    private final Runnable mCommitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final TvTabLayout.Tab tab = mPendingCommitTab;
+            mPendingCommitTab = null;
+            if (tab != null) {
+                mCallback.commitTab(tab);
+            }
+        }
+    };
+
+    /**
+     * @param view the view commits are posted on
+     */
+    TabKeyNavigator(@NonNull View view, @NonNull Callback callback) {
+        mView = view;
+        mCallback = callback;
+    }
+
+    void setKeyRepeatPolicy(@Nullable TvTabLayout.KeyRepeatPolicy policy) {
+        commitKeyRepeat();
+        mKeyRepeatPolicy = policy;
+    }
+
+    @Nullable
+    TvTabLayout.KeyRepeatPolicy getKeyRepeatPolicy() {
+        return mKeyRepeatPolicy;
+    }
+
+    void setSelectionCommitPolicy(int policy) {
+        mSelectionCommitPolicy = policy;
+    }
+
+    int getSelectionCommitPolicy() {
+        return mSelectionCommitPolicy;
+    }
+
+    void setSelectionCommitDelay(int delayMillis) {
+        mSelectionCommitDelay = Math.max(0, delayMillis);
+    }
+
+    int getSelectionCommitDelay() {
+        return mSelectionCommitDelay;
+    }
+
+    void setAdaptiveCommitDelayRange(int minDelayMillis, int maxDelayMillis) {
+        mMinAdaptiveCommitDelay = Math.max(0, minDelayMillis);
+        mMaxAdaptiveCommitDelay = Math.max(mMinAdaptiveCommitDelay, maxDelayMillis);
+    }
+
+    /**
+     * @return the position of the highlight while held keys are coalesced, otherwise
+     * {@link TvTabLayout.Tab#INVALID_POSITION}
+     */
+    int getKeyRepeatPosition() {
+        return mKeyRepeatPosition;
+    }
+
+    /**
+     * Moves the selection, or the highlight of a held key, by one D-pad press.
+     *
+     * @param direction -1 to move left, 1 to move right
+     * @return false if the selection is already at the edge
+     */
+    boolean onKeyDown(KeyEvent event, int direction) {
+        if (event.getRepeatCount() == 0) {
+            // Auto-repeats follow the repeat rate of the device, not the pace of the user
+            observeKeyInterval(event.getEventTime());
+        }
+        if (mKeyRepeatPosition != TvTabLayout.Tab.INVALID_POSITION
+                && (event.getKeyCode() != mKeyRepeatKeyCode || event.getRepeatCount() == 0)) {
+            // A new press, settle the previous one first
+            commitKeyRepeat();
+        }
+        return moveSelectionByKey(event, direction);
+    }
+
+    /**
+     * @return true if the released key was coalesced and its highlight got selected
+     */
+    boolean onKeyUp() {
+        if (mKeyRepeatPosition == TvTabLayout.Tab.INVALID_POSITION) {
+            return false;
+        }
+        commitKeyRepeat();
+        return true;
+    }
+
+    /**
+     * Selects the tab under the key repeat highlight, if any.
+     */
+    void commitKeyRepeat() {
+        final int position = mKeyRepeatPosition;
+        if (position == TvTabLayout.Tab.INVALID_POSITION) {
+            return;
+        }
+        mKeyRepeatPosition = TvTabLayout.Tab.INVALID_POSITION;
+        final int count = mCallback.getTabCount();
+        if (count == 0) {
+            return;
+        }
+        selectTabByKey(MathUtils.constrain(position, 0, count - 1));
+    }
+
+    /**
+     * Posts the commit of {@code tab}, which replaces any pending one. Selections made by key
+     * wait for the delay of the commit policy, others are committed right away.
+     */
+    void scheduleCommit(@NonNull TvTabLayout.Tab tab) {
+        mView.removeCallbacks(mCommitRunnable);
+        mPendingCommitTab = tab;
+        final int delay = mSelectingByKey ? getSelectionCommitDelayForPolicy() : 0;
+        // Posted even without a delay, a linked ViewPager switching its page calls back into
+        // selectTab()
+        mView.postDelayed(mCommitRunnable, delay);
+    }
+
+    private boolean moveSelectionByKey(KeyEvent event, int direction) {
+        final int repeatCount = event.getRepeatCount();
+        final TvTabLayout.KeyRepeatPolicy policy = mKeyRepeatPolicy;
+        final int selectedPosition = mCallback.getSelectedTabPosition();
+        if (policy == null || repeatCount < policy.getCoalesceRepeatCount()) {
+            return selectTabByKey(selectedPosition + direction);
+        }
+
+        final int start = mKeyRepeatPosition != TvTabLayout.Tab.INVALID_POSITION
+                ? mKeyRepeatPosition : selectedPosition;
+        final int position = MathUtils.constrain(
+                start + direction * Math.max(1, policy.getStep(repeatCount)),
+                0, mCallback.getTabCount() - 1);
+        if (mKeyRepeatPosition == TvTabLayout.Tab.INVALID_POSITION && position == start) {
+            // Already at the edge, let the focus leave the strip as for a single press
+            return false;
+        }
+        mKeyRepeatKeyCode = event.getKeyCode();
+        if (position != mKeyRepeatPosition) {
+            mKeyRepeatPosition = position;
+            // Only move the highlight, the selection is committed on key up
+            mCallback.moveHighlight(position);
+        }
+        return true;
+    }
+
+    /**
+     * Selects the tab at {@code position} for a D-pad press, its commit follows the
+     * selection commit policy.
+     */
+    private boolean selectTabByKey(int position) {
+        mSelectingByKey = true;
+        try {
+            return mCallback.selectTab(position);
+        } finally {
+            mSelectingByKey = false;
+        }
+    }
+
+    private void observeKeyInterval(long eventTime) {
+        final long lastKeyDownTime = mLastKeyDownTime;
+        mLastKeyDownTime = eventTime;
+        if (lastKeyDownTime < 0) {
+            return;
+        }
+        final long interval = eventTime - lastKeyDownTime;
+        if (interval <= 0 || interval > mMaxAdaptiveCommitDelay) {
+            // A pause rather than navigation, it says nothing about the pace of the user
+            return;
+        }
+        mKeyIntervalAverage = mKeyIntervalAverage < 0
+                ? interval : mKeyIntervalAverage + (interval - mKeyIntervalAverage) * 0.25f;
+    }
+
+    private int getSelectionCommitDelayForPolicy() {
+        switch (mSelectionCommitPolicy) {
+            case TvTabLayout.COMMIT_DEBOUNCE:
+                return mSelectionCommitDelay;
+            case TvTabLayout.COMMIT_ADAPTIVE:
+                if (mKeyIntervalAverage < 0) {
+                    return mSelectionCommitDelay;
+                }
+                // Wait a bit longer than the next key press would take to arrive
+                return MathUtils.constrain(Math.round(mKeyIntervalAverage * 1.5f),
+                        mMinAdaptiveCommitDelay, mMaxAdaptiveCommitDelay);
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.owen.tab;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of tab views which can be shared by several {@link TvTabLayout}s, so that a screen
+ * showing a few layouts, or swapping the tabs of one, reuses views instead of inflating new
+ * ones. A pooled view takes the styling of whichever layout acquires it.
+ *
+ * <p>Views are pooled per view type. Layouts sharing a pool must give the same view type to
+ * the same kind of custom view, as {@link TvTabLayout.TabAdapter#onCreateCustomView} is only
+ * called when a view of that type is created. The pool must only be used from the main thread
+ * and must not outlive the context it was created with.</p>
+ *
+ * @see TvTabLayout#setTabViewPool(TabViewPool)
+ */
+public class TabViewPool {
+
+    /**
+     * The view type of the tabs which were not created by a {@link TvTabLayout.TabAdapter}.
+     */
+    public static final int DEFAULT_VIEW_TYPE = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_MAX_SIZE = 12;
+
+    private final Context mContext;
+    private final SparseArray<ArrayList<TvTabLayout.TabView>> mScrap = new SparseArray<>();
+    private final SparseIntArray mMaxSizes = new SparseIntArray();
+
+    public TabViewPool(@NonNull Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Sets how many views of {@code viewType} are kept, 12 by default. Views over the new
+     * limit are dropped.
+     */
+    public void setMaxPooledViews(int viewType, int max) {
+        mMaxSizes.put(viewType, max);
+        final ArrayList<TvTabLayout.TabView> scrap = mScrap.get(viewType);
+        if (scrap != null) {
+            while (scrap.size() > max) {
+                scrap.remove(scrap.size() - 1);
+            }
+        }
+    }
+
+    public int getMaxPooledViews(int viewType) {
+        return mMaxSizes.get(viewType, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @return the number of views of {@code viewType} waiting in the pool
+     */
+    public int getPooledViewCount(int viewType) {
+        final ArrayList<TvTabLayout.TabView> scrap = mScrap.get(viewType);
+        return scrap != null ? scrap.size() : 0;
+    }
+
+    /**
+     * @return the number of views of all types waiting in the pool
+     */
+    int getPooledViewCount() {
+        int count = 0;
+        for (int i = 0, z = mScrap.size(); i < z; i++) {
+            count += mScrap.valueAt(i).size();
+        }
+        return count;
+    }
+
+    /**
+     * Creates default tab views, with their text and icon views inflated, until the pool holds
+     * {@code count} of them or is full. Call it ahead of time, e.g. while the screen is idle, to
+     * take the inflation off the path of the first layout which adds tabs.
+     */
+    public void prewarm(int count) {
+        final int target = Math.min(count, getMaxPooledViews(DEFAULT_VIEW_TYPE));
+        final ArrayList<TvTabLayout.TabView> scrap = getScrap(DEFAULT_VIEW_TYPE);
+        while (scrap.size() < target) {
+            final TvTabLayout.TabView tabView = new TvTabLayout.TabView(mContext);
+            tabView.inflateDefaultContent();
+            scrap.add(tabView);
+        }
+    }
+
+    /**
+     * Drops all the pooled views.
+     */
+    public void clear() {
+        mScrap.clear();
+    }
+
+    /**
+     * Drops pooled views until at most {@code keepFraction} of each view type is left.
+     *
+     * @return the number of views dropped
+     */
+    int trim(float keepFraction) {
+        int dropped = 0;
+        for (int i = 0, z = mScrap.size(); i < z; i++) {
+            final ArrayList<TvTabLayout.TabView> scrap = mScrap.valueAt(i);
+            final int keep = (int) (scrap.size() * keepFraction);
+            while (scrap.size() > keep) {
+                scrap.remove(scrap.size() - 1);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    TvTabLayout.TabView acquire(int viewType) {
+        final ArrayList<TvTabLayout.TabView> scrap = mScrap.get(viewType);
+        if (scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    /**
+     * @return false if the view was dropped, because the pool for {@code viewType} is full or
+     * the view is still attached to a layout
+     */
+    boolean release(@NonNull TvTabLayout.TabView tabView, int viewType) {
+        final ArrayList<TvTabLayout.TabView> scrap = getScrap(viewType);
+        if (tabView.getParent() != null || scrap.size() >= getMaxPooledViews(viewType)
+                || scrap.contains(tabView)) {
+            return false;
+        }
+        scrap.add(tabView);
+        return true;
+    }
+
+    private ArrayList<TvTabLayout.TabView> getScrap(int viewType) {
+        ArrayList<TvTabLayout.TabView> scrap = mScrap.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<>();
+            mScrap.put(viewType, scrap);
+        }
+        return scrap;
+    }
+}
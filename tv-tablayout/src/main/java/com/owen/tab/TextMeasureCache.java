@@ -0,0 +1,155 @@
+package com.owen.tab;
+
+import android.graphics.Typeface;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * A bounded LRU cache of tab label metrics, keyed by the text, text size, typeface and maximum
+ * width. Tab labels rarely change while the strip is measured over and over, so the width and
+ * the line count of a label are worked out once and then shared by every tab, and by every
+ * {@link TvTabLayout} using the same cache.
+ *
+ * <p>Spans are ignored, labels are measured as plain strings. The cache is thread safe.</p>
+ *
+ * @see TvTabLayout#setTextMeasureCache(TextMeasureCache)
+ */
+public class TextMeasureCache {
+
+    private static final int DEFAULT_MAX_SIZE = 512;
+
+    private static TextMeasureCache sDefault;
+
+    /**
+     * Metrics of a label.
+     */
+    public static final class Metrics {
+        /**
+         * The width of the label on a single line, in pixels.
+         */
+        public final float width;
+
+        /**
+         * The number of lines the label takes within the maximum width it was measured with.
+         */
+        public final int lineCount;
+
+        Metrics(float width, int lineCount) {
+            this.width = width;
+            this.lineCount = lineCount;
+        }
+    }
+
+    private static final class Key {
+        private final String mText;
+        private final float mTextSize;
+        private final Typeface mTypeface;
+        private final int mMaxWidth;
+        private final int mHashCode;
+
+        Key(String text, float textSize, Typeface typeface, int maxWidth) {
+            mText = text;
+            mTextSize = textSize;
+            mTypeface = typeface;
+            mMaxWidth = maxWidth;
+            int hashCode = text.hashCode();
+            hashCode = 31 * hashCode + Float.floatToIntBits(textSize);
+            hashCode = 31 * hashCode + (typeface != null ? typeface.hashCode() : 0);
+            mHashCode = 31 * hashCode + maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mMaxWidth == key.mMaxWidth
+                    && mTextSize == key.mTextSize
+                    && mTypeface == key.mTypeface
+                    && mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+    private final LruCache<Key, Metrics> mCache;
+
+    /**
+     * Returns the cache used by all layouts which were not given one.
+     */
+    public static synchronized TextMeasureCache getDefault() {
+        if (sDefault == null) {
+            sDefault = new TextMeasureCache(DEFAULT_MAX_SIZE);
+        }
+        return sDefault;
+    }
+
+    /**
+     * @param maxSize the maximum number of labels to keep
+     */
+    public TextMeasureCache(int maxSize) {
+        mCache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Returns the metrics of {@code text} drawn with {@code paint}, measuring it on a miss.
+     *
+     * @param maxWidth the width the text may wrap at, or {@link Integer#MAX_VALUE} for a
+     *                 single line
+     */
+    public Metrics measure(CharSequence text, TextPaint paint, int maxWidth) {
+        final Key key = new Key(text.toString(), paint.getTextSize(), paint.getTypeface(),
+                maxWidth);
+        Metrics metrics = mCache.get(key);
+        if (metrics == null) {
+            final float width = Layout.getDesiredWidth(text, paint);
+            final int lineCount = width <= maxWidth ? 1
+                    : new StaticLayout(text, paint, Math.max(0, maxWidth),
+                            Layout.Alignment.ALIGN_NORMAL, 1f, 0f, false).getLineCount();
+            metrics = new Metrics(width, lineCount);
+            mCache.put(key, metrics);
+        }
+        return metrics;
+    }
+
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return the share of lookups which were answered from the cache, between 0 and 1
+     */
+    public float getHitRate() {
+        final int hits = mCache.hitCount();
+        final int lookups = hits + mCache.missCount();
+        return lookups > 0 ? (float) hits / lookups : 0f;
+    }
+
+    public int size() {
+        return mCache.size();
+    }
+
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Drops the least recently used labels until at most {@code maxSize} are left.
+     */
+    public void trimToSize(int maxSize) {
+        mCache.trimToSize(maxSize);
+    }
+}
@@ -1,18 +1,23 @@
 package com.owen.tab;
 
 import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.database.DataSetObserver;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Path;
 import android.graphics.Rect;
+import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Message;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.IntDef;
 import android.support.annotation.LayoutRes;
@@ -26,20 +31,23 @@ import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPager;
 import android.support.v4.widget.TextViewCompat;
 import android.text.Layout;
+import android.text.TextPaint;
 import android.text.TextUtils;
+import android.text.method.TransformationMethod;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.view.Display;
 import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
-import android.view.ViewPropertyAnimator;
+import android.view.WindowManager;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.widget.HorizontalScrollView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -51,6 +59,9 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static android.support.v4.view.ViewPager.SCROLL_STATE_DRAGGING;
 import static android.support.v4.view.ViewPager.SCROLL_STATE_IDLE;
@@ -137,9 +148,27 @@ public class TvTabLayout extends HorizontalScrollView {
     private static final int MOTION_NON_ADJACENT_OFFSET = 24;
 
     private static final int ANIMATION_DURATION = 300;
+
+    /**
+     * Number of extra tabs kept materialized on each side of the viewport when the strip is
+     * virtualized, so that short scrolls do not bind new views.
+     */
+    private static final int VIRTUALIZED_EXTRA_TABS = 2;
+
+    // Limit of the bitmap the indicator background and the circle dots are cached in
+    private static final int MAX_STATIC_LAYER_BYTES = 1024 * 1024;
+
+    /**
+     * View type of the tab views which were not created for a {@link TabAdapter}.
+     */
+    private static final int INVALID_VIEW_TYPE = TabViewPool.DEFAULT_VIEW_TYPE;
     
     private boolean mTabTextSelectedCentered;
     private float mTabTextSelectedScaleValue;
+    private TabSelectionEffect mTabSelectionEffect = new ScaleSelectionEffect();
+    private final AnimationQualityGovernor mAnimationQualityGovernor =
+            new AnimationQualityGovernor(QUALITY_INSTANT);
+    private boolean mAdaptiveAnimationQuality;
 
     private static final Pools.Pool<Tab> sTabPool = new Pools.SynchronizedPool<>(16);
 
@@ -192,6 +221,125 @@ public class TvTabLayout extends HorizontalScrollView {
     @Retention(RetentionPolicy.SOURCE)
     public @interface TabGravity {}
 
+    /**
+     * Scroll and indicator movements run as fixed-duration animations, which restart for every
+     * new selection.
+     *
+     * @see #setTabMotionMode(int)
+     */
+    public static final int MOTION_TIMED = 0;
+
+    /**
+     * Scroll and indicator movements are driven by springs. A new selection only changes the
+     * destination of the motion in flight and keeps its velocity, which stays smooth at high
+     * key-repeat rates. Requires API 16, below that {@link #MOTION_TIMED} is used.
+     *
+     * @see #setTabMotionMode(int)
+     */
+    public static final int MOTION_SPRING = 1;
+
+    /**
+     * @hide
+     */
+    @IntDef(value = {MOTION_TIMED, MOTION_SPRING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface MotionMode {}
+
+    /**
+     * Animations run as designed.
+     *
+     * @see #getAnimationQuality()
+     */
+    public static final int QUALITY_FULL = 0;
+
+    /**
+     * Scroll, indicator and selection animations run for half their duration.
+     *
+     * @see #getAnimationQuality()
+     */
+    public static final int QUALITY_SHORT_DURATIONS = 1;
+
+    /**
+     * Durations are halved and the {@link TabSelectionEffect} is skipped.
+     *
+     * @see #getAnimationQuality()
+     */
+    public static final int QUALITY_NO_SELECTION_EFFECT = 2;
+
+    /**
+     * Nothing animates, the scroll position and the indicator jump to the selected tab.
+     *
+     * @see #getAnimationQuality()
+     */
+    public static final int QUALITY_INSTANT = 3;
+
+    /**
+     * @hide
+     */
+    @IntDef(value = {QUALITY_FULL, QUALITY_SHORT_DURATIONS, QUALITY_NO_SELECTION_EFFECT,
+            QUALITY_INSTANT})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface AnimationQuality {}
+
+    /**
+     * D-pad selections are committed right away, like all other selections.
+     *
+     * @see #setSelectionCommitPolicy(int)
+     */
+    public static final int COMMIT_IMMEDIATE = 0;
+
+    /**
+     * A D-pad selection is committed once it stayed unchanged for
+     * {@link #setSelectionCommitDelay(int) the commit delay}.
+     *
+     * @see #setSelectionCommitPolicy(int)
+     */
+    public static final int COMMIT_DEBOUNCE = 1;
+
+    /**
+     * Like {@link #COMMIT_DEBOUNCE}, but the delay follows how fast the user presses the D-pad,
+     * so slow presses wait longer than quick ones before a tab the user is passing counts as
+     * settled. Auto-repeats of a held key are not taken into account.
+     *
+     * @see #setSelectionCommitPolicy(int)
+     * @see #setAdaptiveCommitDelayRange(int, int)
+     */
+    public static final int COMMIT_ADAPTIVE = 2;
+
+    /**
+     * @hide
+     */
+    @IntDef(value = {COMMIT_IMMEDIATE, COMMIT_DEBOUNCE, COMMIT_ADAPTIVE})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface SelectionCommitPolicy {}
+
+    /**
+     * The listener is invoked synchronously for every selection change.
+     *
+     * @see #addOnTabSelectedListener(OnTabSelectedListener, int)
+     */
+    public static final int DISPATCH_SYNC = 0;
+
+    /**
+     * The listener is invoked at most once per frame, with the selection the frame ended up
+     * with: one {@link OnTabSelectedListener#onTabUnselected(Tab)} for the tab it was last told
+     * about and one {@link OnTabSelectedListener#onTabSelected(Tab)} for the final tab. Tabs
+     * only passed through in between are never reported.
+     *
+     * @see #addOnTabSelectedListener(OnTabSelectedListener, int)
+     */
+    public static final int DISPATCH_COALESCED = 1;
+
+    /**
+     * @hide
+     */
+    @IntDef(value = {DISPATCH_SYNC, DISPATCH_COALESCED})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface DispatchMode {}
+
+    private static final int DEFAULT_PREFETCH_DISTANCE = 2;
+    private static final int DEFAULT_PREFETCH_DWELL_TIME = 300;
+
     /**
      * Callback interface invoked when a tab's selection state changes.
      */
@@ -220,6 +368,312 @@ public class TvTabLayout extends HorizontalScrollView {
         public void onTabReselected(Tab tab);
     }
 
+    /**
+     * Callback interface invoked when the user settles on a tab, according to the
+     * {@link #setSelectionCommitPolicy(int) selection commit policy}. Tabs which are only passed
+     * through while navigating are selected but never committed, which makes this the place to
+     * start expensive work such as loading a page.
+     */
+    public interface OnTabCommittedListener {
+
+        /**
+         * Called when {@code tab} became the committed selection.
+         *
+         * @param tab The tab that was committed
+         */
+        public void onTabCommitted(Tab tab);
+    }
+
+    /**
+     * Callback interface invoked with the tabs the user is likely to visit next, so that their
+     * content can be warmed up before {@link OnTabSelectedListener#onTabSelected(Tab)}. The
+     * prediction follows the direction and speed of D-pad navigation; once the user dwells on a
+     * tab its neighbours on both sides are predicted.
+     *
+     * @see #addOnTabPrefetchListener(OnTabPrefetchListener)
+     */
+    public interface OnTabPrefetchListener {
+
+        /**
+         * Called when {@code tab} is predicted to be visited next.
+         *
+         * @param tab The predicted tab
+         * @param rank 0 for the most likely tab, increasing for less likely ones
+         */
+        public void onTabPrefetch(Tab tab, int rank);
+
+        /**
+         * Called when {@code tab} is no longer predicted, work started for it can be dropped.
+         * Not called for a predicted tab which got selected, but called for one which is
+         * removed from the layout.
+         *
+         * @param tab The tab which is no longer predicted
+         */
+        public void onTabPrefetchCancelled(Tab tab);
+    }
+
+    /**
+     * Animates the view of a tab in and out of the selected state.
+     *
+     * @see #setTabSelectionEffect(TabSelectionEffect)
+     */
+    public interface TabSelectionEffect {
+
+        /**
+         * Called when the tab of {@code view} becomes selected.
+         */
+        void onTabSelected(@NonNull TvTabLayout parent, @NonNull TabView view);
+
+        /**
+         * Called when the tab of {@code view} is no longer selected.
+         */
+        void onTabUnselected(@NonNull TvTabLayout parent, @NonNull TabView view);
+    }
+
+    /**
+     * The default {@link TabSelectionEffect}: scales the selected tab up by the
+     * {@link #setTabTextSelectedScaleValue(float) selected scale value}, and centers it
+     * vertically if {@link #setTabTextSelectedCentered(boolean) enabled}. The views are animated
+     * on a hardware layer, so the text is not rasterized again on every frame.
+     */
+    public static class ScaleSelectionEffect implements TabSelectionEffect {
+
+        @Override
+        public void onTabSelected(@NonNull TvTabLayout parent, @NonNull TabView view) {
+            if (parent.mTabTextSelectedCentered) {
+                view.animateSelectionState(parent.mTabTextSelectedScaleValue,
+                        (parent.getHeight() - view.getHeight()) / 2,
+                        AnimationUtils.ACCELERATE_DECELERATE_INTERPOLATOR,
+                        parent.getQualityAnimationDuration(700), true);
+            } else if (parent.mTabTextSelectedScaleValue > 0) {
+                view.animateSelectionState(parent.mTabTextSelectedScaleValue,
+                        view.getTranslationY(), AnimationUtils.ACCELERATE_DECELERATE_INTERPOLATOR,
+                        parent.getQualityAnimationDuration(500), true);
+            }
+        }
+
+        @Override
+        public void onTabUnselected(@NonNull TvTabLayout parent, @NonNull TabView view) {
+            if (parent.mTabTextSelectedCentered) {
+                view.animateSelectionState(1f, 0, AnimationUtils.DECELERATE_INTERPOLATOR,
+                        parent.getQualityAnimationDuration(500), true);
+            } else if (parent.mTabTextSelectedScaleValue > 0) {
+                view.animateSelectionState(1f, view.getTranslationY(),
+                        AnimationUtils.ACCELERATE_DECELERATE_INTERPOLATOR,
+                        parent.getQualityAnimationDuration(500), true);
+            }
+        }
+    }
+
+    /**
+     * What {@link #trimMemory(int)} has released over the lifetime of a layout.
+     *
+     * @see #getTrimStats()
+     */
+    public static final class TrimStats {
+        /**
+         * The number of times memory was trimmed.
+         */
+        public final int trimCount;
+
+        /**
+         * The bytes of the icon bitmaps and drawing caches dropped.
+         */
+        public final long bytesFreed;
+
+        /**
+         * The number of tab views dropped from the pool or unbound from off-screen tabs.
+         */
+        public final int tabViewsReleased;
+
+        /**
+         * The number of cached label layouts and metrics dropped.
+         */
+        public final int textEntriesDropped;
+
+        TrimStats(int trimCount, long bytesFreed, int tabViewsReleased,
+                int textEntriesDropped) {
+            this.trimCount = trimCount;
+            this.bytesFreed = bytesFreed;
+            this.tabViewsReleased = tabViewsReleased;
+            this.textEntriesDropped = textEntriesDropped;
+        }
+    }
+
+    /**
+     * Decides how held D-pad keys move the selection. Once a key has repeated
+     * {@link #setCoalesceRepeatCount(int) often enough}, the repeats only move a lightweight
+     * highlight: no listener is told and no selection animation runs. The tab under the
+     * highlight is selected once, when the key is released. Long presses also move several tabs
+     * per repeat, see {@link #getStep(int)}.
+     *
+     * @see #setKeyRepeatPolicy(KeyRepeatPolicy)
+     */
+    public static class KeyRepeatPolicy {
+
+        private int mCoalesceRepeatCount = 1;
+        private int mAccelerationRepeatCount = 10;
+        private int mRepeatsPerStep = 10;
+        private int mMaxStep = 5;
+
+        /**
+         * Sets the repeat count from which repeats are coalesced. Defaults to 1, which means
+         * every auto-repeat of the key.
+         */
+        public KeyRepeatPolicy setCoalesceRepeatCount(int repeatCount) {
+            mCoalesceRepeatCount = Math.max(1, repeatCount);
+            return this;
+        }
+
+        public int getCoalesceRepeatCount() {
+            return mCoalesceRepeatCount;
+        }
+
+        /**
+         * Sets the default acceleration curve: starting at {@code startRepeatCount}, the step
+         * grows by one tab every {@code repeatsPerStep} repeats, up to {@code maxStep} tabs.
+         * Pass a {@code maxStep} of 1 to disable acceleration.
+         */
+        public KeyRepeatPolicy setAcceleration(int startRepeatCount, int repeatsPerStep,
+                int maxStep) {
+            mAccelerationRepeatCount = Math.max(0, startRepeatCount);
+            mRepeatsPerStep = Math.max(1, repeatsPerStep);
+            mMaxStep = Math.max(1, maxStep);
+            return this;
+        }
+
+        /**
+         * Returns the number of tabs to move for a key event with the given repeat count.
+         * Override for a custom acceleration curve.
+         *
+         * @param repeatCount {@link KeyEvent#getRepeatCount()} of the event
+         * @return The step, at least 1
+         */
+        public int getStep(int repeatCount) {
+            if (repeatCount < mAccelerationRepeatCount) {
+                return 1;
+            }
+            return Math.min(mMaxStep, 1 + (repeatCount - mAccelerationRepeatCount) / mRepeatsPerStep);
+        }
+    }
+
+    /**
+     * An adapter which supplies the tabs of a {@link TvTabLayout} on demand. Instead of building
+     * every {@link Tab} up front, the layout asks the adapter to bind a tab only when its view is
+     * about to be shown, which together with {@link #setTabVirtualizationEnabled(boolean)} means
+     * the labels and icons of off-screen tabs are never held in memory.
+     *
+     * @see #setTabAdapter(TabAdapter)
+     */
+    public static abstract class TabAdapter {
+
+        /**
+         * Returned by {@link #getItemId(int)} when the adapter has no stable ids.
+         */
+        public static final long NO_ID = -1;
+
+        private final ArrayList<TabAdapterObserver> mObservers = new ArrayList<>();
+
+        /**
+         * @return The number of tabs
+         */
+        public abstract int getItemCount();
+
+        /**
+         * Returns the stable id of the tab at {@code position}. Stable ids let the layout keep
+         * the selected tab across {@link #notifyDataSetChanged()}.
+         */
+        public long getItemId(int position) {
+            return NO_ID;
+        }
+
+        /**
+         * Returns the view type of the tab at {@code position}. Tab views are only recycled
+         * between tabs of the same view type.
+         */
+        public int getItemViewType(int position) {
+            return 0;
+        }
+
+        /**
+         * Creates the custom view used by the tabs of the given view type. The view is kept with
+         * its tab view when recycled, so it is only inflated once per pooled view.
+         *
+         * @return The custom view, or {@code null} to use the default text and icon layout
+         */
+        @Nullable
+        public View onCreateCustomView(@NonNull ViewGroup parent, int viewType) {
+            return null;
+        }
+
+        /**
+         * Sets the text, icon and content description of {@code tab} for {@code position}. This
+         * is only called when the tab's view is bound, the content is released again when the
+         * view is recycled.
+         */
+        public abstract void onBindTab(@NonNull Tab tab, int position);
+
+        public final void notifyDataSetChanged() {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onChanged();
+            }
+        }
+
+        public final void notifyItemChanged(int position) {
+            notifyItemRangeChanged(position, 1);
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeChanged(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemInserted(int position) {
+            notifyItemRangeInserted(position, 1);
+        }
+
+        public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemRemoved(int position) {
+            notifyItemRangeRemoved(position, 1);
+        }
+
+        public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+
+        public final void notifyItemMoved(int fromPosition, int toPosition) {
+            for (int i = mObservers.size() - 1; i >= 0; i--) {
+                mObservers.get(i).onItemMoved(fromPosition, toPosition);
+            }
+        }
+
+        void registerObserver(TabAdapterObserver observer) {
+            if (!mObservers.contains(observer)) {
+                mObservers.add(observer);
+            }
+        }
+
+        void unregisterObserver(TabAdapterObserver observer) {
+            mObservers.remove(observer);
+        }
+    }
+
+    interface TabAdapterObserver {
+        void onChanged();
+        void onItemRangeChanged(int positionStart, int itemCount);
+        void onItemRangeInserted(int positionStart, int itemCount);
+        void onItemRangeRemoved(int positionStart, int itemCount);
+        void onItemMoved(int fromPosition, int toPosition);
+    }
+
     private final ArrayList<Tab> mTabs = new ArrayList<>();
     private Tab mSelectedTab;
 
@@ -250,9 +704,26 @@ public class TvTabLayout extends HorizontalScrollView {
 
     private OnTabSelectedListener mSelectedListener;
     private final ArrayList<OnTabSelectedListener> mSelectedListeners = new ArrayList<>();
+    private final ArrayList<OnTabSelectedListener> mCoalescedSelectedListeners = new ArrayList<>();
+    // The selection the coalesced listeners were last told about
+    private Tab mCoalescedSelectedTab;
+    // Generation of mCoalescedSelectedTab when it was recorded, see Tab#mGeneration
+    private int mCoalescedSelectedGeneration;
+    private boolean mCoalescedReselected;
+    private boolean mCoalescedDispatchPosted;
+    private final Runnable mCoalescedDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mCoalescedDispatchPosted = false;
+            dispatchCoalesced();
+        }
+    };
     private OnTabSelectedListener mCurrentVpSelectedListener;
 
     private ValueAnimatorCompat mScrollAnimator;
+    private SpringMotion mScrollSpring;
+    private FrameTicker mFrameTicker;
+    private int mTabMotionMode = MOTION_TIMED;
 
     private ViewPager mViewPager;
     private PagerAdapter mPagerAdapter;
@@ -261,9 +732,108 @@ public class TvTabLayout extends HorizontalScrollView {
     private AdapterChangeListener mAdapterChangeListener;
     private boolean mSetupViewPagerImplicitly;
 
-    // Pool we use as a simple RecyclerBin
-    private final Pools.Pool<TabView> mTabViewPool = new Pools.SimplePool<>(12);
+    // Pool we use as a simple RecyclerBin, possibly shared with other layouts
+    private TabViewPool mTabViewPool = new TabViewPool(getContext());
+
+    private TabIconLoader mTabIconLoader;
+
+    // The tab setSelectedTabView() highlighted last, so that the next call only has to update
+    // that tab and the new one
+    private int mSelectedTabViewPosition = Tab.INVALID_POSITION;
+    private boolean mSelectedTabViewFocused;
+    private boolean mTabViewStatesValid;
+
+    private int mTrimCount;
+    private long mTrimmedBytes;
+    private int mTrimmedTabViews;
+    private int mTrimmedTextEntries;
+    private final ComponentCallbacks2 mTrimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+
+    private boolean mTabVirtualizationEnabled;
+    private boolean mTabFlatRenderEnabled;
+
+    private TextMeasureCache mTextMeasureCache = TextMeasureCache.getDefault();
+    private final TextPaint mMeasurePaint = new TextPaint();
+    private TextPaint mTabTextPaint;
+
+    // Pending addTabsAsync() calls, applied in the order they were made
+    private final ArrayList<AsyncTabAddition> mAsyncTabAdditions = new ArrayList<>();
+
+    private TabAdapter mTabAdapter;
+    private TabAdapterObserver mTabAdapterObserver;
+    private boolean mBindingTab;
+
+    private int mBatchUpdateDepth;
+    private boolean mBatchChanged;
+    private int mBatchRenumberFrom = Integer.MAX_VALUE;
+    private int mPendingSelectPosition = Tab.INVALID_POSITION;
+
+    private final TabKeyNavigator mKeyNavigator = new TabKeyNavigator(this,
+            new TabKeyNavigator.Callback() {
+                @Override
+                public int getSelectedTabPosition() {
+                    return TvTabLayout.this.getSelectedTabPosition();
+                }
+
+                @Override
+                public int getTabCount() {
+                    return TvTabLayout.this.getTabCount();
+                }
+
+                @Override
+                public boolean selectTab(int position) {
+                    return TvTabLayout.this.selectTab(position);
+                }
+
+                @Override
+                public void moveHighlight(int position) {
+                    if (isSpringMotion()) {
+                        animateToTab(position);
+                    } else {
+                        setScrollPosition(position, 0f, false);
+                    }
+                    setSelectedTabView(position);
+                }
+
+                @Override
+                public void commitTab(@NonNull Tab tab) {
+                    // Only commit the tab that is still selected
+                    if (tab == mSelectedTab) {
+                        dispatchTabCommitted(tab);
+                    }
+                }
+            });
 
+    private final ArrayList<OnTabCommittedListener> mCommittedListeners = new ArrayList<>();
+
+    private final ArrayList<OnTabPrefetchListener> mPrefetchListeners = new ArrayList<>();
+    private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private int mPrefetchDwellTime = DEFAULT_PREFETCH_DWELL_TIME;
+    private int mPrefetchDirection = 1;
+    // The tabs the prefetch listeners were told about, most likely first
+    private final ArrayList<Tab> mPrefetchedTabs = new ArrayList<>();
+    private final ArrayList<Tab> mPrefetchScratch = new ArrayList<>();
+    private final Runnable mPrefetchDwellRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // The user settled, either neighbour may come next
+            updatePrefetch(getHighlightedTabPosition(), mPrefetchDirection, 1, true);
+        }
+    };
     public TvTabLayout(Context context) {
         this(context, null);
     }
@@ -353,9 +923,398 @@ public class TvTabLayout extends HorizontalScrollView {
         mTabTextSelectedScaleValue = tabTextSelectedScaleValue;
     }
 
-    @Override
+    /**
+     * Set the effect which animates tabs in and out of the selected state. By default a
+     * {@link ScaleSelectionEffect}, null disables the effect.
+     */
+    public void setTabSelectionEffect(@Nullable TabSelectionEffect effect) {
+        mTabSelectionEffect = effect;
+    }
+
+    @Nullable
+    public TabSelectionEffect getTabSelectionEffect() {
+        return mTabSelectionEffect;
+    }
+
+    /**
+     * Set how the scroll position and the indicator move to a newly selected tab.
+     *
+     * @param mode one of {@link #MOTION_TIMED} or {@link #MOTION_SPRING}.
+     */
+    public void setTabMotionMode(@MotionMode int mode) {
+        if (mTabMotionMode != mode) {
+            mTabMotionMode = mode;
+            if (mScrollAnimator != null && mScrollAnimator.isRunning()) {
+                mScrollAnimator.end();
+            }
+            if (mScrollSpring != null) {
+                mScrollSpring.cancel();
+            }
+            mTabStrip.stopIndicatorMotion();
+        }
+    }
+
+    @MotionMode
+    public int getTabMotionMode() {
+        return mTabMotionMode;
+    }
+
+    /**
+     * Returns the clock all animations of this layout run on, or null below API 16 where the
+     * animators fall back to their own timing.
+     */
+    @Nullable
+    FrameTicker getFrameTicker() {
+        if (mFrameTicker == null && Build.VERSION.SDK_INT >= 16) {
+            mFrameTicker = new FrameTicker(FrameClock.getDefault(), mTabStrip);
+            updateAnimationFrameInterval();
+            if (mAdaptiveAnimationQuality) {
+                mFrameTicker.setGovernor(mAnimationQualityGovernor);
+            }
+        }
+        return mFrameTicker;
+    }
+
+    /**
+     * Set whether the layout lowers the quality of its animations when they miss frames, and
+     * raises it again once frames are back on time. Disabled by default.
+     *
+     * @see #getAnimationQuality()
+     */
+    public void setAdaptiveAnimationQualityEnabled(boolean enabled) {
+        if (mAdaptiveAnimationQuality != enabled) {
+            mAdaptiveAnimationQuality = enabled;
+            mAnimationQualityGovernor.reset();
+            if (mFrameTicker != null) {
+                mFrameTicker.setGovernor(enabled ? mAnimationQualityGovernor : null);
+            }
+        }
+    }
+
+    /**
+     * Tells the governor how long a frame lasts on the display the layout is shown on, so that
+     * frames are judged late against its actual refresh rate.
+     */
+    private void updateAnimationFrameInterval() {
+        Display display = ViewCompat.getDisplay(this);
+        if (display == null) {
+            final WindowManager windowManager =
+                    (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+            display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        }
+        final float refreshRate = display != null ? display.getRefreshRate() : 0f;
+        if (refreshRate >= 1f) {
+            mAnimationQualityGovernor.setFrameIntervalNanos((long) (1000000000L / refreshRate));
+        }
+    }
+
+    public boolean isAdaptiveAnimationQualityEnabled() {
+        return mAdaptiveAnimationQuality;
+    }
+
+    /**
+     * Returns the quality the animations currently run at, lowered from {@link #QUALITY_FULL}
+     * while frames are being missed.
+     *
+     * @return one of {@link #QUALITY_FULL}, {@link #QUALITY_SHORT_DURATIONS},
+     * {@link #QUALITY_NO_SELECTION_EFFECT} or {@link #QUALITY_INSTANT}
+     * @see #setAdaptiveAnimationQualityEnabled(boolean)
+     */
+    @AnimationQuality
+    public int getAnimationQuality() {
+        return mAdaptiveAnimationQuality ? mAnimationQualityGovernor.getLevel() : QUALITY_FULL;
+    }
+
+    /**
+     * Returns {@code duration} adjusted to the current animation quality.
+     */
+    int getQualityAnimationDuration(int duration) {
+        return getAnimationQuality() >= QUALITY_SHORT_DURATIONS ? duration / 2 : duration;
+    }
+
+    private boolean isSpringMotion() {
+        return mTabMotionMode == MOTION_SPRING && Build.VERSION.SDK_INT >= 16;
+    }
+
+    private SpringMotion getScrollSpring() {
+        if (mScrollSpring == null) {
+            mScrollSpring = new SpringMotion(getFrameTicker(), new SpringMotion.Listener() {
+                @Override
+                public void onSpringUpdate(SpringMotion spring) {
+                    scrollTo(Math.round(spring.getValue()), 0);
+                }
+
+                @Override
+                public void onSpringAtRest(SpringMotion spring) {
+                }
+            });
+        }
+        return mScrollSpring;
+    }
+
+    /**
+     * Enable or disable the virtualized tab strip. When enabled, only the {@link TabView}s of the
+     * tabs inside the visible window (plus a small margin) are attached to the strip, the others
+     * are recycled as the layout scrolls. Tabs without a view still take part in selection,
+     * D-pad navigation and indicator placement, using the last measured (or estimated) width.
+     *
+     * <p>This only takes effect in {@link #MODE_SCROLLABLE}, since fixed tabs are all visible
+     * anyway.</p>
+     *
+     * @param enabled true to only materialize the visible tabs
+     * @see #isTabVirtualizationEnabled()
+     */
+    public void setTabVirtualizationEnabled(boolean enabled) {
+        if (mTabVirtualizationEnabled != enabled) {
+            final boolean wasVirtualized = isTabVirtualized();
+            mTabVirtualizationEnabled = enabled;
+            if (wasVirtualized != isTabVirtualized()) {
+                rebuildTabViews();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the virtualized tab strip has been enabled.
+     *
+     * @see #setTabVirtualizationEnabled(boolean)
+     */
+    public boolean isTabVirtualizationEnabled() {
+        return mTabVirtualizationEnabled;
+    }
+
+    boolean isTabVirtualized() {
+        return mTabVirtualizationEnabled && mScrollMode == MODE_SCROLLABLE
+                && !mTabFlatRenderEnabled;
+    }
+
+    /**
+     * Enable or disable flat rendering. When enabled the tabs have no views at all: the strip
+     * draws each tab's background, icon and text itself from cached text layouts, and handles
+     * touches and the selected/activated text colors. This makes long text-only strips much
+     * cheaper to measure, lay out and keep in memory.
+     *
+     * <p>Flat tabs show their text on a single line, ellipsized at the maximum tab width, and
+     * apply the selected scale without animating. Custom views are not shown, only the text and
+     * icon of the tabs. Flat rendering takes precedence over
+     * {@link #setTabVirtualizationEnabled(boolean) virtualization}.</p>
+     *
+     * @param enabled true to draw the tabs without views
+     * @see #isTabFlatRenderEnabled()
+     */
+    public void setTabFlatRenderEnabled(boolean enabled) {
+        if (mTabFlatRenderEnabled != enabled) {
+            mTabFlatRenderEnabled = enabled;
+            // The widths recorded from the tab views are not those of the drawn tabs
+            mTabStrip.invalidateFlatTabWidths();
+            rebuildTabViews();
+            mTabStrip.invalidate();
+        }
+    }
+
+    /**
+     * Returns whether flat rendering has been enabled.
+     *
+     * @see #setTabFlatRenderEnabled(boolean)
+     */
+    public boolean isTabFlatRenderEnabled() {
+        return mTabFlatRenderEnabled;
+    }
+
+    /**
+     * Set the cache the label metrics are looked up in while measuring. By default all layouts
+     * share {@link TextMeasureCache#getDefault()}.
+     */
+    public void setTextMeasureCache(@NonNull TextMeasureCache cache) {
+        if (mTextMeasureCache != cache) {
+            mTextMeasureCache = cache;
+            requestLayout();
+        }
+    }
+
+    @NonNull
+    public TextMeasureCache getTextMeasureCache() {
+        return mTextMeasureCache;
+    }
+
+    /**
+     * Set the loader which decodes the icons set with {@link Tab#setIcon(int)} off the main
+     * thread. By default those icons are loaded synchronously.
+     */
+    public void setTabIconLoader(@Nullable TabIconLoader loader) {
+        mTabIconLoader = loader;
+    }
+
+    @Nullable
+    public TabIconLoader getTabIconLoader() {
+        return mTabIconLoader;
+    }
+
+    /**
+     * Returns the size the icon of {@code tab} is decoded at: that of its icon view once it has
+     * been measured, else the default icon size.
+     */
+    private int getTabIconSize(@NonNull Tab tab) {
+        final TabView tabView = tab.mView;
+        if (tabView != null) {
+            final ImageView iconView = tabView.mCustomIconView != null
+                    ? tabView.mCustomIconView : tabView.mIconView;
+            if (iconView != null && iconView.getMeasuredWidth() > 0) {
+                return Math.max(iconView.getMeasuredWidth(), iconView.getMeasuredHeight());
+            }
+        }
+        return dpToPx(FlatTabRenderer.ICON_SIZE);
+    }
+
+    /**
+     * Releases memory held for reuse, in steps by how bad the pressure is. The layout calls this
+     * itself from {@link ComponentCallbacks2#onTrimMemory(int)} while it is attached.
+     * <ul>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_MODERATE}: halves the tab view pool.</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW}: empties the tab view and tab
+     * pools, halves the icon and label caches and drops the labels of off-screen flat tabs.</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL} and above: empties the icon
+     * and label caches and unbinds the views of off-screen virtualized tabs.</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_UI_HIDDEN} and above: also drops the cached
+     * layer of the indicator background and dots.</li>
+     * </ul>
+     *
+     * @param level a {@link ComponentCallbacks2} trim level
+     * @return the bytes of bitmaps freed. Views and labels are counted in
+     * {@link #getTrimStats()}.
+     */
+    public long trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return 0;
+        }
+        final boolean low = level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+        final boolean critical = level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+        long bytesFreed = 0;
+        int textEntries = 0;
+        int tabViews = 0;
+
+        if (critical) {
+            // Unbound views go to the pool, which is emptied below. Those it kept are counted
+            // there, the others here.
+            final int pooledViews = mTabViewPool.getPooledViewCount();
+            final int unbound = mTabStrip.releaseOffscreenTabViews();
+            tabViews += unbound - (mTabViewPool.getPooledViewCount() - pooledViews);
+        }
+        tabViews += mTabViewPool.trim(low ? 0f : 0.5f);
+        if (low) {
+            while (sTabPool.acquire() != null) {
+                // Drain the pool, new tabs are allocated again once needed
+            }
+            bytesFreed += trimIconLoader(mTabIconLoader, critical);
+            final TabIconLoader defaultLoader = TabIconLoader.peekDefault();
+            if (defaultLoader != mTabIconLoader) {
+                bytesFreed += trimIconLoader(defaultLoader, critical);
+            }
+            final int textCacheSize = mTextMeasureCache.size();
+            mTextMeasureCache.trimToSize(critical ? 0 : textCacheSize / 2);
+            textEntries += textCacheSize - mTextMeasureCache.size();
+            textEntries += mTabStrip.releaseOffscreenFlatTextLayouts();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            bytesFreed += mTabStrip.releaseStaticLayer();
+        }
+
+        mTrimCount++;
+        mTrimmedBytes += bytesFreed;
+        mTrimmedTabViews += tabViews;
+        mTrimmedTextEntries += textEntries;
+        return bytesFreed;
+    }
+
+    private static long trimIconLoader(@Nullable TabIconLoader loader, boolean clear) {
+        if (loader == null) {
+            return 0;
+        }
+        final int size = loader.size();
+        loader.trimToSize(clear ? 0 : size / 2);
+        return size - loader.size();
+    }
+
+    /**
+     * Returns what {@link #trimMemory(int)} has released so far.
+     */
+    @NonNull
+    public TrimStats getTrimStats() {
+        return new TrimStats(mTrimCount, mTrimmedBytes, mTrimmedTabViews, mTrimmedTextEntries);
+    }
+
+    private Context getCallbacksContext() {
+        final Context appContext = getContext().getApplicationContext();
+        return appContext != null ? appContext : getContext();
+    }
+
+    /**
+     * Set the pool the tab views are recycled through. Layouts given the same pool share their
+     * recycled views, which is worth it when several layouts are on screen or the tabs are
+     * swapped often. By default every layout has a pool of its own.
+     *
+     * @see TabViewPool#prewarm(int)
+     */
+    public void setTabViewPool(@NonNull TabViewPool pool) {
+        mTabViewPool = pool;
+    }
+
+    @NonNull
+    public TabViewPool getTabViewPool() {
+        return mTabViewPool;
+    }
+
+    /**
+     * Returns a scratch paint which measures like {@code paint} at {@code textSize}.
+     */
+    private TextPaint getMeasurePaint(TextPaint paint, float textSize) {
+        mMeasurePaint.set(paint);
+        mMeasurePaint.setTextSize(textSize);
+        return mMeasurePaint;
+    }
+
+    /**
+     * @return true if the tabs are not all backed by views, so the strip keeps track of their
+     * geometry itself
+     */
+    boolean usesTabGeometry() {
+        return mTabFlatRenderEnabled || isTabVirtualized();
+    }
+
+    /**
+     * Populate this layout from a {@link TabAdapter}. Any existing tabs are removed. The adapter
+     * only binds the tabs whose views are shown, so it is best combined with
+     * {@link #setTabVirtualizationEnabled(boolean)}. Tabs should not be added or removed by hand
+     * while an adapter is set.
+     *
+     * @param adapter the adapter to pull the tabs from, or {@code null} to clear it
+     */
+    public void setTabAdapter(@Nullable TabAdapter adapter) {
+        if (mTabAdapter != null && mTabAdapterObserver != null) {
+            mTabAdapter.unregisterObserver(mTabAdapterObserver);
+        }
+        mTabAdapter = adapter;
+        if (adapter != null) {
+            if (mTabAdapterObserver == null) {
+                mTabAdapterObserver = new TabAdapterDataObserver();
+            }
+            adapter.registerObserver(mTabAdapterObserver);
+        }
+        populateFromTabAdapter(TabAdapter.NO_ID);
+    }
+
+    @Nullable
+    public TabAdapter getTabAdapter() {
+        return mTabAdapter;
+    }
+
+    @Override
     protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
         super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if (!gainFocus) {
+            mKeyNavigator.commitKeyRepeat();
+        }
+        invalidateTabViewStates();
         if(null != mSelectedTab) {
             final View selectedView = mSelectedTab.getView();
             if(null != selectedView) {
@@ -368,13 +1327,23 @@ public class TvTabLayout extends HorizontalScrollView {
 
     @Override
     public boolean dispatchKeyEvent(KeyEvent event) {
+        final int keyCode = event.getKeyCode();
+        final boolean isDpad = keyCode == KeyEvent.KEYCODE_DPAD_LEFT
+                || keyCode == KeyEvent.KEYCODE_DPAD_RIGHT;
         switch (event.getAction()) {
             case KeyEvent.ACTION_DOWN:
-                if(event.getKeyCode() == KeyEvent.KEYCODE_DPAD_LEFT) {
-                    return selectTab(getSelectedTabPosition() - 1);
+                if (isDpad) {
+                    final int direction = keyCode == KeyEvent.KEYCODE_DPAD_LEFT ? -1 : 1;
+                    final boolean handled = mKeyNavigator.onKeyDown(event, direction);
+                    if (handled) {
+                        predictTabsFromKey(event, direction);
+                    }
+                    return handled;
                 }
-                else if(event.getKeyCode() == KeyEvent.KEYCODE_DPAD_RIGHT) {
-                    return selectTab(getSelectedTabPosition() + 1);
+                break;
+            case KeyEvent.ACTION_UP:
+                if (isDpad && mKeyNavigator.onKeyUp()) {
+                    return true;
                 }
                 break;
         }
@@ -382,6 +1351,252 @@ public class TvTabLayout extends HorizontalScrollView {
         return super.dispatchKeyEvent(event);
     }
 
+    /**
+     * Set when a selection made with the D-pad counts as settled and is reported to the
+     * {@link OnTabCommittedListener}s, which includes switching the page of a
+     * {@link #setupWithViewPager(ViewPager) linked ViewPager}. Defaults to
+     * {@link #COMMIT_DEBOUNCE}. Other selections, such as a touched tab, {@link Tab#select()} or
+     * a page change of the linked ViewPager, are committed right away.
+     *
+     * <p>Commits are always posted, so the listeners never run from within the selection.</p>
+     *
+     * @param policy one of {@link #COMMIT_IMMEDIATE}, {@link #COMMIT_DEBOUNCE} or
+     *               {@link #COMMIT_ADAPTIVE}.
+     */
+    public void setSelectionCommitPolicy(@SelectionCommitPolicy int policy) {
+        mKeyNavigator.setSelectionCommitPolicy(policy);
+    }
+
+    @SelectionCommitPolicy
+    public int getSelectionCommitPolicy() {
+        return mKeyNavigator.getSelectionCommitPolicy();
+    }
+
+    /**
+     * Set the delay used by {@link #COMMIT_DEBOUNCE}. {@link #COMMIT_ADAPTIVE} also uses it
+     * until it has observed the key repeat rate.
+     *
+     * @param delayMillis the delay in milliseconds
+     */
+    public void setSelectionCommitDelay(int delayMillis) {
+        mKeyNavigator.setSelectionCommitDelay(delayMillis);
+    }
+
+    public int getSelectionCommitDelay() {
+        return mKeyNavigator.getSelectionCommitDelay();
+    }
+
+    /**
+     * Set the bounds of the delay picked by {@link #COMMIT_ADAPTIVE}.
+     *
+     * @param minDelayMillis the shortest delay in milliseconds
+     * @param maxDelayMillis the longest delay in milliseconds
+     */
+    public void setAdaptiveCommitDelayRange(int minDelayMillis, int maxDelayMillis) {
+        mKeyNavigator.setAdaptiveCommitDelayRange(minDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Add a {@link TvTabLayout.OnTabCommittedListener} that will be invoked when a selection
+     * is committed. Listeners added with {@link #addOnTabSelectedListener(OnTabSelectedListener)}
+     * which also implement {@link OnTabCommittedListener} are invoked as well.
+     *
+     * @param listener listener to add
+     */
+    public void addOnTabCommittedListener(@NonNull OnTabCommittedListener listener) {
+        if (!mCommittedListeners.contains(listener)) {
+            mCommittedListeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove the given {@link TvTabLayout.OnTabCommittedListener} that was previously added via
+     * {@link #addOnTabCommittedListener(OnTabCommittedListener)}.
+     *
+     * @param listener listener to remove
+     */
+    public void removeOnTabCommittedListener(@NonNull OnTabCommittedListener listener) {
+        mCommittedListeners.remove(listener);
+    }
+
+    private void dispatchTabCommitted(@NonNull final Tab tab) {
+        for (int i = mCommittedListeners.size() - 1; i >= 0; i--) {
+            mCommittedListeners.get(i).onTabCommitted(tab);
+        }
+        for (int i = mSelectedListeners.size() - 1; i >= 0; i--) {
+            final OnTabSelectedListener listener = mSelectedListeners.get(i);
+            if (listener instanceof OnTabCommittedListener
+                    && !mCommittedListeners.contains(listener)) {
+                ((OnTabCommittedListener) listener).onTabCommitted(tab);
+            }
+        }
+        for (int i = mCoalescedSelectedListeners.size() - 1; i >= 0; i--) {
+            final OnTabSelectedListener listener = mCoalescedSelectedListeners.get(i);
+            if (listener instanceof OnTabCommittedListener
+                    && !mCommittedListeners.contains(listener)) {
+                ((OnTabCommittedListener) listener).onTabCommitted(tab);
+            }
+        }
+    }
+
+    /**
+     * Add a {@link TvTabLayout.OnTabPrefetchListener} that will be told about the tabs likely to
+     * be visited next.
+     *
+     * @param listener listener to add
+     */
+    public void addOnTabPrefetchListener(@NonNull OnTabPrefetchListener listener) {
+        if (!mPrefetchListeners.contains(listener)) {
+            mPrefetchListeners.add(listener);
+        }
+    }
+
+    /**
+     * Remove the given {@link TvTabLayout.OnTabPrefetchListener} that was previously added via
+     * {@link #addOnTabPrefetchListener(OnTabPrefetchListener)}.
+     *
+     * @param listener listener to remove
+     */
+    public void removeOnTabPrefetchListener(@NonNull OnTabPrefetchListener listener) {
+        mPrefetchListeners.remove(listener);
+        if (mPrefetchListeners.isEmpty()) {
+            removeCallbacks(mPrefetchDwellRunnable);
+            mPrefetchedTabs.clear();
+        }
+    }
+
+    /**
+     * Set how many tabs ahead in the direction of navigation are predicted.
+     */
+    public void setPrefetchDistance(int distance) {
+        mPrefetchDistance = Math.max(1, distance);
+    }
+
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    /**
+     * Set how long the user has to stay on a tab before the tabs on both sides of it are
+     * predicted.
+     *
+     * @param dwellTimeMillis the time in milliseconds
+     */
+    public void setPrefetchDwellTime(int dwellTimeMillis) {
+        mPrefetchDwellTime = Math.max(0, dwellTimeMillis);
+    }
+
+    public int getPrefetchDwellTime() {
+        return mPrefetchDwellTime;
+    }
+
+    private int getHighlightedTabPosition() {
+        final int keyRepeatPosition = mKeyNavigator.getKeyRepeatPosition();
+        return keyRepeatPosition != Tab.INVALID_POSITION
+                ? keyRepeatPosition : getSelectedTabPosition();
+    }
+
+    private void predictTabsFromKey(KeyEvent event, int direction) {
+        if (mPrefetchListeners.isEmpty()) {
+            return;
+        }
+        mPrefetchDirection = direction;
+        // While a key is held the highlight jumps by the step of the next repeat, predicting
+        // the tabs in between would only warm tabs that get skipped
+        final int repeatCount = event.getRepeatCount();
+        final KeyRepeatPolicy policy = mKeyNavigator.getKeyRepeatPolicy();
+        final int step = policy != null && repeatCount + 1 >= policy.getCoalesceRepeatCount()
+                ? Math.max(1, policy.getStep(repeatCount + 1)) : 1;
+        updatePrefetch(getHighlightedTabPosition(), direction, step, false);
+
+        removeCallbacks(mPrefetchDwellRunnable);
+        postDelayed(mPrefetchDwellRunnable, mPrefetchDwellTime);
+    }
+
+    /**
+     * Replaces the current prediction, cancelling tabs which dropped out of it.
+     */
+    private void updatePrefetch(int position, int direction, int step, boolean bothSides) {
+        final ArrayList<Tab> predicted = mPrefetchScratch;
+        predicted.clear();
+        final int count = mTabs.size();
+        if (position >= 0 && position < count) {
+            for (int i = 1; i <= mPrefetchDistance; i++) {
+                addPrefetchCandidate(predicted, position + direction * step * i);
+                if (bothSides) {
+                    addPrefetchCandidate(predicted, position - direction * step * i);
+                }
+            }
+        }
+
+        final Tab highlighted = position >= 0 && position < count ? mTabs.get(position) : null;
+        for (int i = 0, z = mPrefetchedTabs.size(); i < z; i++) {
+            final Tab tab = mPrefetchedTabs.get(i);
+            if (tab != highlighted && !predicted.contains(tab)) {
+                for (int j = mPrefetchListeners.size() - 1; j >= 0; j--) {
+                    mPrefetchListeners.get(j).onTabPrefetchCancelled(tab);
+                }
+            }
+        }
+        for (int i = 0, z = predicted.size(); i < z; i++) {
+            final Tab tab = predicted.get(i);
+            if (!mPrefetchedTabs.contains(tab)) {
+                for (int j = mPrefetchListeners.size() - 1; j >= 0; j--) {
+                    mPrefetchListeners.get(j).onTabPrefetch(tab, i);
+                }
+            }
+        }
+        mPrefetchedTabs.clear();
+        mPrefetchedTabs.addAll(predicted);
+        predicted.clear();
+    }
+
+    /**
+     * Drops a tab which is being removed from the prediction, before it gets recycled.
+     */
+    private void cancelPrefetch(Tab tab) {
+        if (mPrefetchedTabs.remove(tab)) {
+            for (int i = mPrefetchListeners.size() - 1; i >= 0; i--) {
+                mPrefetchListeners.get(i).onTabPrefetchCancelled(tab);
+            }
+        }
+    }
+
+    private void addPrefetchCandidate(ArrayList<Tab> predicted, int position) {
+        if (position >= 0 && position < mTabs.size()) {
+            predicted.add(mTabs.get(position));
+        }
+    }
+
+    /**
+     * Set how held D-pad keys move the selection. By default, or when {@code policy} is null,
+     * every key event selects the neighbouring tab.
+     */
+    public void setKeyRepeatPolicy(@Nullable KeyRepeatPolicy policy) {
+        mKeyNavigator.setKeyRepeatPolicy(policy);
+    }
+
+    @Nullable
+    public KeyRepeatPolicy getKeyRepeatPolicy() {
+        return mKeyNavigator.getKeyRepeatPolicy();
+    }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        if (!hasWindowFocus) {
+            // We won't see the key up
+            mKeyNavigator.commitKeyRepeat();
+        }
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        mTabStrip.updateVisibleTabViews(false);
+        mTabStrip.onViewportScrolled();
+    }
+
     /**
      * Set the scroll position of the tabs. This is useful for when the tabs are being displayed as
      * part of a scrolling container such as {@link ViewPager}.
@@ -399,7 +1614,7 @@ public class TvTabLayout extends HorizontalScrollView {
     private void setScrollPosition(int position, float positionOffset, boolean updateSelectedText,
                                    boolean updateIndicatorPosition) {
         final int roundedPosition = Math.round(position + positionOffset);
-        if (roundedPosition < 0 || roundedPosition >= mTabStrip.getChildCount()) {
+        if (roundedPosition < 0 || roundedPosition >= mTabs.size()) {
             return;
         }
         // Set the indicator position, if enabled
@@ -411,6 +1626,9 @@ public class TvTabLayout extends HorizontalScrollView {
         if (mScrollAnimator != null && mScrollAnimator.isRunning()) {
             mScrollAnimator.cancel();
         }
+        if (mScrollSpring != null) {
+            mScrollSpring.cancel();
+        }
 
         scrollTo(calculateScrollXForTab(position, positionOffset), 0);
 
@@ -446,36 +1664,235 @@ public class TvTabLayout extends HorizontalScrollView {
     }
 
     /**
-     * Add a tab to this layout. The tab will be added at the end of the list.
+     * Add a tab to this layout. The tab will be added at the end of the list.
+     *
+     * @param tab Tab to add
+     * @param setSelected True if the added tab should become the selected tab.
+     */
+    public void addTab(@NonNull Tab tab, boolean setSelected) {
+        addTab(tab, mTabs.size(), setSelected);
+    }
+
+    /**
+     * Add a tab to this layout. The tab will be inserted at <code>position</code>.
+     *
+     * @param tab The tab to add
+     * @param position The new position of the tab
+     * @param setSelected True if the added tab should become the selected tab.
+     */
+    public void addTab(@NonNull final Tab tab, int position, boolean setSelected) {
+        if (tab.mParent != this) {
+            throw new IllegalArgumentException("Tab belongs to a different TabLayout.");
+        }
+        configureTab(tab, position);
+        addTabView(tab);
+
+        if (setSelected) {
+            final View view = tab.getView() != null ? tab.getView() : this;
+            view.post(new Runnable() {
+                @Override
+                public void run() {
+                    tab.select();
+                }
+            });
+        }
+    }
+
+    /**
+     * Add several tabs to the end of this layout at once. The tabs are numbered and attached in
+     * one pass, followed by a single layout and indicator update. If the layout had no tabs, the
+     * first added tab becomes the selected tab.
+     *
+     * @param tabs Tabs to add
+     * @see #beginBatchUpdate()
+     */
+    public void addTabs(@NonNull List<Tab> tabs) {
+        final boolean selectFirst = mTabs.isEmpty();
+        beginBatchUpdate();
+        try {
+            for (int i = 0, z = tabs.size(); i < z; i++) {
+                final Tab tab = tabs.get(i);
+                if (tab.mParent != this) {
+                    throw new IllegalArgumentException("Tab belongs to a different TabLayout.");
+                }
+                configureTab(tab, mTabs.size());
+                addTabView(tab);
+            }
+        } finally {
+            endBatchUpdate();
+        }
+        if (selectFirst && !mTabs.isEmpty()) {
+            selectTab(mTabs.get(0));
+        }
+    }
+
+    /**
+     * Add several tabs to the end of this layout once their labels have been measured on
+     * {@code executor}. Shaping many labels is the bulk of the first measure pass, doing it up
+     * front on a background thread leaves the UI thread with {@link TextMeasureCache} hits. The
+     * tabs are then added on the main thread as with {@link #addTabs(List)}.
+     *
+     * <p>Additions are applied in the order they were requested. Pending additions are dropped
+     * by {@link #removeAllTabs()}. If {@code executor} is null the tabs are added right away.
+     * If it rejects the work, the labels are measured on the calling thread instead.</p>
+     *
+     * @param tabs Tabs to add
+     * @param executor Executor to measure the labels on, or null to add synchronously
+     * @param onAdded Run on the main thread after the tabs have been added, may be null
+     */
+    public void addTabsAsync(@NonNull List<Tab> tabs, @Nullable Executor executor,
+            @Nullable Runnable onAdded) {
+        final List<Tab> copy = new ArrayList<>(tabs);
+        if (executor == null) {
+            addTabs(copy);
+            if (onAdded != null) {
+                onAdded.run();
+            }
+            return;
+        }
+        final AsyncTabAddition addition = new AsyncTabAddition(copy, onAdded);
+        mAsyncTabAdditions.add(addition);
+        try {
+            executor.execute(addition);
+        } catch (RejectedExecutionException e) {
+            // Measured here instead, a pending addition would hold up all the later ones
+            addition.run();
+        }
+    }
+
+    /**
+     * Returns the paint the labels of the tab views are drawn with.
+     */
+    private TextPaint getTabTextPaint() {
+        if (mTabTextPaint == null) {
+            final TextView textView = (TextView) LayoutInflater.from(getContext())
+                    .inflate(R.layout.tab_layout_tab_text, mTabStrip, false);
+            mTabTextPaint = new TextPaint();
+            mTabTextPaint.set(textView.getPaint());
+        }
+        return mTabTextPaint;
+    }
+
+    private void flushAsyncTabAdditions() {
+        while (!mAsyncTabAdditions.isEmpty() && mAsyncTabAdditions.get(0).mMeasured) {
+            final AsyncTabAddition addition = mAsyncTabAdditions.remove(0);
+            addTabs(addition.mTabs);
+            if (addition.mOnAdded != null) {
+                addition.mOnAdded.run();
+            }
+        }
+    }
+
+    /**
+     * Measures the labels of a list of tabs into the {@link TextMeasureCache} with the same
+     * keys the measure pass will look up, then hands the tabs back to the main thread. Labels
+     * are measured on a single line, so the keys do not depend on the width the tabs get.
+     */
+    private class AsyncTabAddition implements Runnable {
+        final List<Tab> mTabs;
+        final Runnable mOnAdded;
+        final CharSequence[] mTexts;
+        final TextMeasureCache mCache;
+        final TextPaint mPaint;
+        volatile boolean mMeasured;
+
+        private final Runnable mFinishRunnable = new Runnable() {
+            @Override
+            public void run() {
+                flushAsyncTabAdditions();
+            }
+        };
+
+        AsyncTabAddition(List<Tab> tabs, Runnable onAdded) {
+            mTabs = tabs;
+            mOnAdded = onAdded;
+            // Everything the worker needs is copied on the main thread
+            mTexts = new CharSequence[tabs.size()];
+            for (int i = 0; i < mTexts.length; i++) {
+                mTexts[i] = tabs.get(i).getText();
+            }
+            mCache = mTextMeasureCache;
+            mPaint = new TextPaint();
+            if (mTabFlatRenderEnabled) {
+                mPaint.setAntiAlias(true);
+            } else {
+                mPaint.set(getTabTextPaint());
+            }
+            mPaint.setTextSize(mTabTextSize);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (CharSequence text : mTexts) {
+                    if (!TextUtils.isEmpty(text)) {
+                        mCache.measure(text, mPaint, Integer.MAX_VALUE);
+                    }
+                }
+            } finally {
+                mMeasured = true;
+                post(mFinishRunnable);
+            }
+        }
+    }
+
+    /**
+     * Start a batch of tab changes. Until the matching {@link #endBatchUpdate()}, adding and
+     * removing tabs neither renumbers the following tabs nor requests a layout, so N changes
+     * cost a single renumbering pass, layout and indicator update. Batches may be nested.
      *
-     * @param tab Tab to add
-     * @param setSelected True if the added tab should become the selected tab.
+     * <p>{@link Tab#getPosition()} is only reliable again once the batch has ended.</p>
      */
-    public void addTab(@NonNull Tab tab, boolean setSelected) {
-        addTab(tab, mTabs.size(), setSelected);
+    public void beginBatchUpdate() {
+        mBatchUpdateDepth++;
     }
 
     /**
-     * Add a tab to this layout. The tab will be inserted at <code>position</code>.
-     *
-     * @param tab The tab to add
-     * @param position The new position of the tab
-     * @param setSelected True if the added tab should become the selected tab.
+     * End a batch of tab changes started with {@link #beginBatchUpdate()}.
      */
-    public void addTab(@NonNull final Tab tab, int position, boolean setSelected) {
-        if (tab.mParent != this) {
-            throw new IllegalArgumentException("Tab belongs to a different TabLayout.");
+    public void endBatchUpdate() {
+        if (mBatchUpdateDepth <= 0) {
+            throw new IllegalStateException("endBatchUpdate() called without beginBatchUpdate()");
         }
-        configureTab(tab, position);
-        addTabView(tab);
+        if (--mBatchUpdateDepth > 0 || !mBatchChanged) {
+            return;
+        }
+        mBatchChanged = false;
 
-        if (setSelected) {
-            tab.getView().post(new Runnable() {
-                @Override
-                public void run() {
-                    tab.select();
-                }
-            });
+        if (mBatchRenumberFrom != Integer.MAX_VALUE) {
+            final int from = mBatchRenumberFrom;
+            mBatchRenumberFrom = Integer.MAX_VALUE;
+            renumberTabs(from);
+        }
+
+        if (mPendingSelectPosition != Tab.INVALID_POSITION) {
+            final int position = Math.min(mPendingSelectPosition, mTabs.size() - 1);
+            mPendingSelectPosition = Tab.INVALID_POSITION;
+            if (position >= 0) {
+                selectTab(mTabs.get(position));
+            } else {
+                mSelectedTab = null;
+            }
+        } else if (mSelectedTab != null && mSelectedTab.getPosition() != Tab.INVALID_POSITION) {
+            mTabStrip.setIndicatorPositionFromTabPosition(mSelectedTab.getPosition(), 0f);
+        }
+
+        mTabStrip.requestLayout();
+        mTabStrip.invalidate();
+    }
+
+    private boolean isInBatchUpdate() {
+        return mBatchUpdateDepth > 0;
+    }
+
+    private void renumberTabs(int from) {
+        invalidateTabViewStates();
+        if (isInBatchUpdate()) {
+            mBatchRenumberFrom = Math.min(mBatchRenumberFrom, from);
+            return;
+        }
+        for (int i = from, z = mTabs.size(); i < z; i++) {
+            mTabs.get(i).setPosition(i);
         }
     }
 
@@ -525,7 +1942,29 @@ public class TvTabLayout extends HorizontalScrollView {
      * @param listener listener to add
      */
     public void addOnTabSelectedListener(@NonNull OnTabSelectedListener listener) {
-        if (!mSelectedListeners.contains(listener)) {
+        addOnTabSelectedListener(listener, DISPATCH_SYNC);
+    }
+
+    /**
+     * Add a {@link TvTabLayout.OnTabSelectedListener} that will be invoked when tab selection
+     * changes, either for every change or once per frame.
+     *
+     * @param listener listener to add
+     * @param dispatchMode one of {@link #DISPATCH_SYNC} or {@link #DISPATCH_COALESCED}.
+     */
+    public void addOnTabSelectedListener(@NonNull OnTabSelectedListener listener,
+            @DispatchMode int dispatchMode) {
+        if (mSelectedListeners.contains(listener)
+                || mCoalescedSelectedListeners.contains(listener)) {
+            return;
+        }
+        if (dispatchMode == DISPATCH_COALESCED) {
+            if (mCoalescedSelectedListeners.isEmpty()) {
+                setCoalescedSelectedTab(mSelectedTab);
+                mCoalescedReselected = false;
+            }
+            mCoalescedSelectedListeners.add(listener);
+        } else {
             mSelectedListeners.add(listener);
         }
     }
@@ -538,6 +1977,7 @@ public class TvTabLayout extends HorizontalScrollView {
      */
     public void removeOnTabSelectedListener(@NonNull OnTabSelectedListener listener) {
         mSelectedListeners.remove(listener);
+        mCoalescedSelectedListeners.remove(listener);
     }
 
     /**
@@ -554,7 +1994,10 @@ public class TvTabLayout extends HorizontalScrollView {
             tab = new Tab();
         }
         tab.mParent = this;
-        tab.mView = createTabView(tab);
+        if (!usesTabGeometry()) {
+            // Virtualized tabs get their view once they scroll into the visible window
+            tab.mView = createTabView(tab);
+        }
         return tab;
     }
 
@@ -608,22 +2051,41 @@ public class TvTabLayout extends HorizontalScrollView {
      * @param position Position of the tab to remove
      */
     public void removeTabAt(int position) {
-        final int selectedTabPosition = mSelectedTab != null ? mSelectedTab.getPosition() : 0;
-        removeTabViewAt(position);
-
-        final Tab removedTab = mTabs.remove(position);
-        if (removedTab != null) {
-            removedTab.reset();
-            sTabPool.release(removedTab);
-        }
+        removeTabs(position, 1);
+    }
 
-        final int newTabCount = mTabs.size();
-        for (int i = position; i < newTabCount; i++) {
-            mTabs.get(i).setPosition(i);
+    /**
+     * Remove {@code count} tabs starting at {@code from}, with a single renumbering pass and
+     * layout. If the selected tab is removed, the tab before the removed range is selected.
+     *
+     * @param from Position of the first tab to remove
+     * @param count Number of tabs to remove
+     */
+    public void removeTabs(int from, int count) {
+        if (count <= 0) {
+            return;
         }
-
-        if (selectedTabPosition == position) {
-            selectTab(mTabs.isEmpty() ? null : mTabs.get(Math.max(0, position - 1)));
+        // Without a selected tab, removing the first tab selects the next one, as it always did
+        boolean removesSelected = mSelectedTab == null && from == 0;
+        beginBatchUpdate();
+        try {
+            for (int i = from + count - 1; i >= from; i--) {
+                final Tab tab = mTabs.get(i);
+                removesSelected |= tab == mSelectedTab;
+                removeTabViewAt(i);
+                cancelPrefetch(tab);
+                tab.reset();
+                sTabPool.release(tab);
+            }
+            mTabs.subList(from, from + count).clear();
+            mTabStrip.removeTabGeometry(from, count);
+            renumberTabs(from);
+            mBatchChanged = true;
+            if (removesSelected) {
+                mPendingSelectPosition = Math.max(0, from - 1);
+            }
+        } finally {
+            endBatchUpdate();
         }
     }
 
@@ -631,19 +2093,30 @@ public class TvTabLayout extends HorizontalScrollView {
      * Remove all tabs from the action bar and deselect the current tab.
      */
     public void removeAllTabs() {
-        // Remove all the views
-        for (int i = mTabStrip.getChildCount() - 1; i >= 0; i--) {
-            removeTabViewAt(i);
-        }
+        mAsyncTabAdditions.clear();
+        beginBatchUpdate();
+        try {
+            // Remove all the views
+            for (int i = mTabs.size() - 1; i >= 0; i--) {
+                removeTabViewAt(i);
+            }
+            mTabStrip.clearTabGeometry();
+
+            for (final Iterator<Tab> i = mTabs.iterator(); i.hasNext();) {
+                final Tab tab = i.next();
+                i.remove();
+                cancelPrefetch(tab);
+                tab.reset();
+                sTabPool.release(tab);
+            }
 
-        for (final Iterator<Tab> i = mTabs.iterator(); i.hasNext();) {
-            final Tab tab = i.next();
-            i.remove();
-            tab.reset();
-            sTabPool.release(tab);
+            mSelectedTab = null;
+            mPendingSelectPosition = Tab.INVALID_POSITION;
+            mBatchRenumberFrom = Integer.MAX_VALUE;
+            mBatchChanged = true;
+        } finally {
+            endBatchUpdate();
         }
-
-        mSelectedTab = null;
     }
 
     /**
@@ -663,7 +2136,11 @@ public class TvTabLayout extends HorizontalScrollView {
      */
     public void setTabScrollMode(@Mode int mode) {
         if (mode != mScrollMode) {
+            final boolean wasVirtualized = isTabVirtualized();
             mScrollMode = mode;
+            if (wasVirtualized != isTabVirtualized()) {
+                rebuildTabViews();
+            }
             applyModeAndGravity();
         }
     }
@@ -907,6 +2384,9 @@ public class TvTabLayout extends HorizontalScrollView {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        getCallbacksContext().registerComponentCallbacks(mTrimMemoryCallbacks);
+        // The window may be on another display than the one the frame ticker was set up for
+        updateAnimationFrameInterval();
 
         if (mViewPager == null) {
             // If we don't have a ViewPager already, check if our parent is a ViewPager to
@@ -923,6 +2403,9 @@ public class TvTabLayout extends HorizontalScrollView {
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        getCallbacksContext().unregisterComponentCallbacks(mTrimMemoryCallbacks);
+        mKeyNavigator.commitKeyRepeat();
+        removeCallbacks(mPrefetchDwellRunnable);
 
         if (mSetupViewPagerImplicitly) {
             // If we've been setup with a ViewPager implicitly, let's clear out any listeners, etc
@@ -957,12 +2440,19 @@ public class TvTabLayout extends HorizontalScrollView {
     }
 
     private void populateFromPagerAdapter() {
-        removeAllTabs();
-
-        if (mPagerAdapter != null) {
+        if (mPagerAdapter == null) {
+            removeAllTabs();
+        } else {
             final int adapterCount = mPagerAdapter.getCount();
+            final CharSequence[] titles = new CharSequence[adapterCount];
             for (int i = 0; i < adapterCount; i++) {
-                addTab(newTab().setText(mPagerAdapter.getPageTitle(i)), false);
+                titles[i] = mPagerAdapter.getPageTitle(i);
+            }
+            beginBatchUpdate();
+            try {
+                applyPageTitles(titles);
+            } finally {
+                endBatchUpdate();
             }
 
             // Make sure we reflect the currently set ViewPager item
@@ -985,6 +2475,43 @@ public class TvTabLayout extends HorizontalScrollView {
         }
     }
 
+    /**
+     * Brings the tabs in line with the given titles, touching only the tabs which differ. The
+     * unchanged titles at the start and at the end are skipped, the titles in between are
+     * updated in place and only the difference in count is inserted or removed, so the selected
+     * tab and the scroll offset survive a refresh of a few titles.
+     */
+    private void applyPageTitles(@NonNull CharSequence[] titles) {
+        final int oldCount = mTabs.size();
+        final int newCount = titles.length;
+        if (newCount == 0) {
+            removeAllTabs();
+            return;
+        }
+
+        int start = 0;
+        final int minCount = Math.min(oldCount, newCount);
+        while (start < minCount && TextUtils.equals(mTabs.get(start).getText(), titles[start])) {
+            start++;
+        }
+        int oldEnd = oldCount;
+        int newEnd = newCount;
+        while (oldEnd > start && newEnd > start
+                && TextUtils.equals(mTabs.get(oldEnd - 1).getText(), titles[newEnd - 1])) {
+            oldEnd--;
+            newEnd--;
+        }
+
+        final int updateCount = Math.min(oldEnd, newEnd) - start;
+        for (int i = start; i < start + updateCount; i++) {
+            mTabs.get(i).setText(titles[i]);
+        }
+        removeTabs(start + updateCount, oldEnd - start - updateCount);
+        for (int i = start + updateCount; i < newEnd; i++) {
+            addTab(newTab().setText(titles[i]), i, false);
+        }
+    }
+
     private void updateAllTabs() {
         for (int i = 0, z = mTabs.size(); i < z; i++) {
             mTabs.get(i).updateView();
@@ -992,9 +2519,18 @@ public class TvTabLayout extends HorizontalScrollView {
     }
 
     private TabView createTabView(@NonNull final Tab tab) {
-        TabView tabView = mTabViewPool != null ? mTabViewPool.acquire() : null;
+        final int viewType = tab.mViewType;
+        TabView tabView = mTabViewPool.acquire(viewType);
         if (tabView == null) {
             tabView = new TabView(getContext());
+            tabView.mViewType = viewType;
+            if (viewType != INVALID_VIEW_TYPE) {
+                tabView.mRetainedCustomView = mTabAdapter.onCreateCustomView(mTabStrip, viewType);
+            }
+        }
+        tabView.bindParent(this);
+        if (viewType != INVALID_VIEW_TYPE) {
+            bindAdapterTab(tab, tabView.mRetainedCustomView);
         }
         tabView.setTab(tab);
         tabView.setFocusable(true);
@@ -1005,16 +2541,190 @@ public class TvTabLayout extends HorizontalScrollView {
     private void configureTab(Tab tab, int position) {
         tab.setPosition(position);
         mTabs.add(position, tab);
-
-        final int count = mTabs.size();
-        for (int i = position + 1; i < count; i++) {
-            mTabs.get(i).setPosition(i);
+        mTabStrip.insertTabGeometry(position);
+        if (isInBatchUpdate()) {
+            mBatchChanged = true;
         }
+
+        renumberTabs(position + 1);
     }
 
     private void addTabView(Tab tab) {
+        if (usesTabGeometry()) {
+            // The strip binds a view once the tab scrolls into the visible window, or draws it
+            if (tab.mView != null) {
+                recycleTabView(tab.mView);
+            }
+            if (!isInBatchUpdate()) {
+                mTabStrip.requestLayout();
+            }
+            return;
+        }
+        if (tab.mView == null) {
+            tab.mView = createTabView(tab);
+        }
         final TabView tabView = tab.mView;
-        mTabStrip.addView(tabView, tab.getPosition(), createLayoutParamsForTabs());
+        if (isInBatchUpdate()) {
+            // Laid out once when the batch ends
+            mTabStrip.addTabViewInLayout(tabView, tab.getPosition(), createLayoutParamsForTabs());
+        } else {
+            mTabStrip.addView(tabView, tab.getPosition(), createLayoutParamsForTabs());
+        }
+    }
+
+    private void recycleTabView(@NonNull TabView tabView) {
+        final Tab tab = tabView.getTab();
+        if (tab != null && tab.mView == tabView) {
+            tab.mView = null;
+            if (tab.mViewType != INVALID_VIEW_TYPE) {
+                // Adapter tabs only hold their content while bound
+                tab.releaseBoundContent();
+            }
+        }
+        tabView.reset();
+        mTabViewPool.release(tabView, tabView.mViewType);
+    }
+
+    private void bindAdapterTab(@NonNull Tab tab, @Nullable View customView) {
+        mBindingTab = true;
+        try {
+            tab.mCustomView = customView;
+            mTabAdapter.onBindTab(tab, tab.getPosition());
+            tab.mContentBound = true;
+        } finally {
+            mBindingTab = false;
+        }
+    }
+
+    private Tab newAdapterTab(int position) {
+        Tab tab = sTabPool.acquire();
+        if (tab == null) {
+            tab = new Tab();
+        }
+        tab.mParent = this;
+        tab.mId = mTabAdapter.getItemId(position);
+        tab.mViewType = mTabAdapter.getItemViewType(position);
+        return tab;
+    }
+
+    private void populateFromTabAdapter(long selectedId) {
+        removeAllTabs();
+        if (mTabAdapter == null) {
+            return;
+        }
+        Tab selectedTab = null;
+        beginBatchUpdate();
+        try {
+            for (int i = 0, count = mTabAdapter.getItemCount(); i < count; i++) {
+                final Tab tab = newAdapterTab(i);
+                configureTab(tab, i);
+                addTabView(tab);
+                if (selectedId != TabAdapter.NO_ID && tab.mId == selectedId) {
+                    selectedTab = tab;
+                }
+            }
+        } finally {
+            endBatchUpdate();
+        }
+        if (selectedTab == null && !mTabs.isEmpty()) {
+            selectedTab = mTabs.get(0);
+        }
+        selectTab(selectedTab);
+    }
+
+    private class TabAdapterDataObserver implements TabAdapterObserver {
+        @Override
+        public void onChanged() {
+            final long selectedId = mSelectedTab != null ? mSelectedTab.mId : TabAdapter.NO_ID;
+            populateFromTabAdapter(selectedId);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            for (int i = positionStart, end = positionStart + itemCount; i < end; i++) {
+                final Tab tab = mTabs.get(i);
+                final int viewType = mTabAdapter.getItemViewType(i);
+                tab.mId = mTabAdapter.getItemId(i);
+                final TabView tabView = tab.mView;
+                if (tabView == null) {
+                    tab.mViewType = viewType;
+                    mTabStrip.invalidateTabWidth(i);
+                } else if (tabView.mViewType != viewType) {
+                    // A different view type needs a different view
+                    removeTabViewAt(i);
+                    tab.mViewType = viewType;
+                    addTabView(tab);
+                } else {
+                    bindAdapterTab(tab, tabView.mRetainedCustomView);
+                    tabView.update();
+                }
+            }
+            if (mSelectedTab != null) {
+                setSelectedTabView(mSelectedTab.getPosition());
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            beginBatchUpdate();
+            try {
+                for (int i = positionStart, end = positionStart + itemCount; i < end; i++) {
+                    final Tab tab = newAdapterTab(i);
+                    configureTab(tab, i);
+                    addTabView(tab);
+                }
+            } finally {
+                endBatchUpdate();
+            }
+            if (mSelectedTab == null && !mTabs.isEmpty()) {
+                selectTab(mTabs.get(0));
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removeTabs(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemMoved(int fromPosition, int toPosition) {
+            if (fromPosition == toPosition) {
+                return;
+            }
+            final Tab tab = mTabs.remove(fromPosition);
+            mTabs.add(toPosition, tab);
+            mTabStrip.removeTabGeometry(fromPosition);
+            mTabStrip.insertTabGeometry(toPosition);
+            for (int i = Math.min(fromPosition, toPosition),
+                 end = Math.max(fromPosition, toPosition); i <= end; i++) {
+                mTabs.get(i).setPosition(i);
+            }
+            final TabView tabView = tab.mView;
+            if (tabView != null && !usesTabGeometry()) {
+                mTabStrip.removeView(tabView);
+                mTabStrip.addView(tabView, toPosition);
+            } else {
+                mTabStrip.requestLayout();
+            }
+        }
+    }
+
+    /**
+     * Detaches every tab view and re-adds them according to the current virtualization state.
+     */
+    private void rebuildTabViews() {
+        for (int i = mTabStrip.getChildCount() - 1; i >= 0; i--) {
+            final TabView tabView = (TabView) mTabStrip.getChildAt(i);
+            mTabStrip.removeViewAt(i);
+            recycleTabView(tabView);
+        }
+        for (int i = 0, z = mTabs.size(); i < z; i++) {
+            addTabView(mTabs.get(i));
+        }
+        if (mSelectedTab != null) {
+            setSelectedTabView(mSelectedTab.getPosition());
+        }
+        requestLayout();
     }
 
     @Override
@@ -1144,13 +2854,20 @@ public class TvTabLayout extends HorizontalScrollView {
     }
 
     private void removeTabViewAt(int position) {
-        final TabView view = (TabView) mTabStrip.getChildAt(position);
-        mTabStrip.removeViewAt(position);
+        final TabView view = mTabs.get(position).mView;
         if (view != null) {
-            view.reset();
-            mTabViewPool.release(view);
+            if (view.getParent() == mTabStrip) {
+                if (isInBatchUpdate()) {
+                    mTabStrip.removeViewInLayout(view);
+                } else {
+                    mTabStrip.removeView(view);
+                }
+            }
+            recycleTabView(view);
+        }
+        if (!isInBatchUpdate()) {
+            requestLayout();
         }
-        requestLayout();
     }
 
     private void animateToTab(int newPosition) {
@@ -1166,14 +2883,28 @@ public class TvTabLayout extends HorizontalScrollView {
             return;
         }
 
-        if(null == mViewPager) { //修复indicator跳动的问题
+        if (null == mViewPager && getAnimationQuality() == QUALITY_INSTANT) {
+            // Frames are missed even with short animations, jump instead
+            mAnimationQualityGovernor.onAnimationSkipped();
+            setScrollPosition(newPosition, 0f, true);
+            return;
+        }
+
+        if(null == mViewPager && isSpringMotion()) {
+            // Retarget the motion in flight rather than restarting it
+            final SpringMotion scrollSpring = getScrollSpring();
+            if (!scrollSpring.isRunning()) {
+                scrollSpring.setValue(getScrollX());
+            }
+            scrollSpring.animateTo(calculateScrollXForTab(newPosition, 0));
+            mTabStrip.springIndicatorToPosition(newPosition);
+        } else if(null == mViewPager) { //修复indicator跳动的问题
             final int startScrollX = getScrollX();
             final int targetScrollX = calculateScrollXForTab(newPosition, 0);
             if (startScrollX != targetScrollX) {
                 if (mScrollAnimator == null) {
-                    mScrollAnimator = ViewUtils.createAnimator();
+                    mScrollAnimator = ViewUtils.createAnimator(getFrameTicker());
                     mScrollAnimator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
-                    mScrollAnimator.setDuration(ANIMATION_DURATION);
                     mScrollAnimator.setUpdateListener(new ValueAnimatorCompat.AnimatorUpdateListener() {
                         @Override
                         public void onAnimationUpdate(ValueAnimatorCompat animator) {
@@ -1183,20 +2914,89 @@ public class TvTabLayout extends HorizontalScrollView {
                 }
     
                 mScrollAnimator.setIntValues(startScrollX, targetScrollX);
+                mScrollAnimator.setDuration(getQualityAnimationDuration(ANIMATION_DURATION));
                 mScrollAnimator.start();
             }
             // Now animate the indicator
-            mTabStrip.animateIndicatorToPosition(newPosition, ANIMATION_DURATION);
+            mTabStrip.animateIndicatorToPosition(newPosition,
+                    getQualityAnimationDuration(ANIMATION_DURATION));
         }
     }
 
     private void setSelectedTabView(int position) {
-        final int tabCount = mTabStrip.getChildCount();
-        if (position < tabCount) {
-            for (int i = 0; i < tabCount; i++) {
-                final View child = mTabStrip.getChildAt(i);
-                child.setSelected(i == position && hasFocus());
-                child.setActivated(i == position && !hasFocus());
+        if (position < mTabs.size()) {
+            final boolean focused = hasFocus();
+            final int previous = mSelectedTabViewPosition;
+            if (mTabViewStatesValid) {
+                if (position == previous && focused == mSelectedTabViewFocused) {
+                    return;
+                }
+                // Only the tab which lost the highlight and the one which got it change
+                if (previous != position) {
+                    setTabViewState(previous, false, focused);
+                }
+                setTabViewState(position, true, focused);
+            } else {
+                for (int i = 0, z = mTabStrip.getChildCount(); i < z; i++) {
+                    final View child = mTabStrip.getChildAt(i);
+                    final int childPosition = mTabStrip.getTabPositionOfChild(i);
+                    child.setSelected(childPosition == position && focused);
+                    child.setActivated(childPosition == position && !focused);
+                }
+                mTabViewStatesValid = true;
+            }
+            mSelectedTabViewPosition = position;
+            mSelectedTabViewFocused = focused;
+            if (mTabFlatRenderEnabled) {
+                invalidateFlatTab(previous);
+                invalidateFlatTab(position);
+            }
+        }
+    }
+
+    private void setTabViewState(int position, boolean highlighted, boolean focused) {
+        if (position < 0 || position >= mTabs.size()) {
+            return;
+        }
+        final TabView tabView = mTabs.get(position).mView;
+        if (tabView != null) {
+            tabView.setSelected(highlighted && focused);
+            tabView.setActivated(highlighted && !focused);
+        }
+    }
+
+    private void invalidateFlatTab(int position) {
+        final int width = mTabStrip.getTabWidth(position);
+        if (width > 0) {
+            final int left = mTabStrip.getTabLeft(position);
+            mTabStrip.invalidate(left, 0, left + width, mTabStrip.getHeight());
+        }
+    }
+
+    /**
+     * Makes the next {@link #setSelectedTabView(int)} bring every tab view into its state,
+     * after views were bound, changed or moved behind its back.
+     */
+    private void invalidateTabViewStates() {
+        mTabViewStatesValid = false;
+    }
+
+    /**
+     * Brings a freshly bound view of a virtualized tab into the state the selection implies,
+     * without animating.
+     */
+    private void applyTabViewState(@NonNull TabView tabView, int position) {
+        final boolean selected = mSelectedTab != null && mSelectedTab.getPosition() == position;
+        final int keyRepeatPosition = mKeyNavigator.getKeyRepeatPosition();
+        final boolean highlighted = keyRepeatPosition != Tab.INVALID_POSITION
+                ? keyRepeatPosition == position : selected;
+        tabView.setSelected(highlighted && hasFocus());
+        tabView.setActivated(highlighted && !hasFocus());
+        if (selected && (mTabTextSelectedCentered || mTabTextSelectedScaleValue > 0)) {
+            tabView.setScaleX(mTabTextSelectedScaleValue);
+            tabView.setScaleY(mTabTextSelectedScaleValue);
+            if (mTabTextSelectedCentered) {
+                tabView.setTranslationY((getHeight() - tabView.getMeasuredHeight()) / 2);
             }
         }
     }
@@ -1235,6 +3035,7 @@ public class TvTabLayout extends HorizontalScrollView {
             }
             mSelectedTab = tab;
             dispatchTabSelected(tab);
+            mKeyNavigator.scheduleCommit(tab);
         }
         return true;
     }
@@ -1249,6 +3050,7 @@ public class TvTabLayout extends HorizontalScrollView {
         for (int i = mSelectedListeners.size() - 1; i >= 0; i--) {
             mSelectedListeners.get(i).onTabSelected(tab);
         }
+        scheduleCoalescedDispatch();
     }
 
     private void dispatchTabUnselected(@NonNull final Tab tab) {
@@ -1263,35 +3065,79 @@ public class TvTabLayout extends HorizontalScrollView {
         for (int i = mSelectedListeners.size() - 1; i >= 0; i--) {
             mSelectedListeners.get(i).onTabReselected(tab);
         }
+        mCoalescedReselected = true;
+        scheduleCoalescedDispatch();
+    }
+
+    private void scheduleCoalescedDispatch() {
+        if (mCoalescedSelectedListeners.isEmpty()) {
+            setCoalescedSelectedTab(mSelectedTab);
+            mCoalescedReselected = false;
+        } else if (!mCoalescedDispatchPosted) {
+            mCoalescedDispatchPosted = true;
+            ViewCompat.postOnAnimation(this, mCoalescedDispatchRunnable);
+        }
+    }
+
+    /**
+     * Tells the coalesced listeners about the selection the frame ended up with.
+     */
+    private void dispatchCoalesced() {
+        final Tab previous = mCoalescedSelectedTab;
+        // A tab removed in the meantime has been recycled, maybe into one of the current tabs
+        final boolean previousRemoved = previous != null
+                && previous.mGeneration != mCoalescedSelectedGeneration;
+        final Tab current = mSelectedTab;
+        final boolean reselected = mCoalescedReselected;
+        setCoalescedSelectedTab(current);
+        mCoalescedReselected = false;
+
+        final ArrayList<OnTabSelectedListener> listeners = mCoalescedSelectedListeners;
+        if (previous == current && !previousRemoved) {
+            if (reselected && current != null) {
+                for (int i = listeners.size() - 1; i >= 0; i--) {
+                    listeners.get(i).onTabReselected(current);
+                }
+            }
+            return;
+        }
+        if (previous != null && !previousRemoved) {
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                listeners.get(i).onTabUnselected(previous);
+            }
+        }
+        if (current != null) {
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                listeners.get(i).onTabSelected(current);
+            }
+        }
+    }
+
+    private void setCoalescedSelectedTab(@Nullable Tab tab) {
+        mCoalescedSelectedTab = tab;
+        mCoalescedSelectedGeneration = tab != null ? tab.mGeneration : 0;
     }
 
     protected void onTabSelected(@NonNull final Tab tab) {
-        final ViewPropertyAnimator animator = tab.getView().animate();
-        if(mTabTextSelectedCentered) {
-            animator.scaleX(mTabTextSelectedScaleValue).scaleY(mTabTextSelectedScaleValue)
-                    .translationY((getHeight() - tab.getView().getHeight()) / 2)
-                    .setInterpolator(new AccelerateDecelerateInterpolator())
-                    .setDuration(700)
-                    .start();
-        } else if(mTabTextSelectedScaleValue > 0) {
-            animator.scaleX(mTabTextSelectedScaleValue).scaleY(mTabTextSelectedScaleValue)
-                    .setDuration(500)
-                    .start();
+        if (tab.getView() == null) {
+            // Virtualized tab without a view, the state is applied once it gets bound
+            return;
+        }
+        if (mTabSelectionEffect != null
+                && getAnimationQuality() < QUALITY_NO_SELECTION_EFFECT) {
+            mTabSelectionEffect.onTabSelected(this, tab.mView);
         }
     }
 
     protected void onTabUnselected(@NonNull final Tab tab) {
-        final ViewPropertyAnimator animator = tab.getView().animate();
-        if(mTabTextSelectedCentered) {
-            animator.scaleX(1f).scaleY(1f)
-                    .translationY(0)
-                    .setInterpolator(new DecelerateInterpolator())
-                    .setDuration(500)
-                    .start();
-        } else if(mTabTextSelectedScaleValue > 0) {
-            animator.scaleX(1f).scaleY(1f)
-                    .setDuration(500)
-                    .start();
+        if (tab.getView() == null) {
+            return;
+        }
+        if (getAnimationQuality() >= QUALITY_NO_SELECTION_EFFECT) {
+            // Undo whatever the effect left on the view
+            tab.mView.resetSelectionState();
+        } else if (mTabSelectionEffect != null) {
+            mTabSelectionEffect.onTabUnselected(this, tab.mView);
         }
     }
 
@@ -1300,15 +3146,13 @@ public class TvTabLayout extends HorizontalScrollView {
 
     private int calculateScrollXForTab(int position, float positionOffset) {
         if (mScrollMode == MODE_SCROLLABLE) {
-            final View selectedChild = mTabStrip.getChildAt(position);
-            final View nextChild = position + 1 < mTabStrip.getChildCount()
-                    ? mTabStrip.getChildAt(position + 1)
-                    : null;
-            final int selectedWidth = selectedChild != null ? selectedChild.getWidth() : 0;
-            final int nextWidth = nextChild != null ? nextChild.getWidth() : 0;
+            final int selectedWidth = mTabStrip.getTabWidth(position);
+            final int nextWidth = position + 1 < mTabs.size()
+                    ? mTabStrip.getTabWidth(position + 1)
+                    : 0;
             
             // base scroll amount: places center of tab in center of parent
-            int scrollBase = selectedChild.getLeft() + (selectedWidth / 2) - (getWidth() / 2);
+            int scrollBase = mTabStrip.getTabLeft(position) + (selectedWidth / 2) - (getWidth() / 2);
             // offset amount: fraction of the distance between centers of tabs
             int scrollOffset = (int) ((selectedWidth + nextWidth) * 0.5f * positionOffset);
             
@@ -1371,6 +3215,27 @@ public class TvTabLayout extends HorizontalScrollView {
 
         private TvTabLayout mParent;
         private TabView mView;
+        // Bumped every time the tab is recycled, which tells the pooled object apart from the
+        // tab it was before
+        private int mGeneration;
+
+        private long mId = TabAdapter.NO_ID;
+        private int mViewType = INVALID_VIEW_TYPE;
+        private boolean mContentBound;
+
+        // The label drawn in flat render mode, and the width it was ellipsized to
+        private Layout mFlatTextLayout;
+        private int mFlatTextMaxWidth;
+
+        // The icon being loaded by a TabIconLoader, while the placeholder is shown
+        private TabIconLoader.Request mIconRequest;
+        private final TabIconLoader.Callback mIconCallback = new TabIconLoader.Callback() {
+            @Override
+            public void onIconLoaded(@Nullable Drawable icon) {
+                mIconRequest = null;
+                applyIcon(icon);
+            }
+        };
 
         private Tab() {
             // Private constructor
@@ -1431,6 +3296,7 @@ public class TvTabLayout extends HorizontalScrollView {
         @NonNull
         public Tab setCustomView(@Nullable View view) {
             mCustomView = view;
+            invalidateMeasureCache();
             updateView();
             return this;
         }
@@ -1450,8 +3316,13 @@ public class TvTabLayout extends HorizontalScrollView {
          */
         @NonNull
         public Tab setCustomView(@LayoutRes int resId) {
-            final LayoutInflater inflater = LayoutInflater.from(mView.getContext());
-            return setCustomView(inflater.inflate(resId, mView, false));
+            if (mParent == null) {
+                throw new IllegalArgumentException("Tab not attached to a TabLayout");
+            }
+            // A virtualized tab may not have a view yet, the strip gives the same layout params
+            final ViewGroup root = mView != null ? mView : mParent.mTabStrip;
+            final LayoutInflater inflater = LayoutInflater.from(mParent.getContext());
+            return setCustomView(inflater.inflate(resId, root, false));
         }
 
         /**
@@ -1478,6 +3349,16 @@ public class TvTabLayout extends HorizontalScrollView {
             mPosition = position;
         }
 
+        /**
+         * Return the stable id given by the {@link TabAdapter} for this tab.
+         *
+         * @return The stable id, or {@link TabAdapter#NO_ID} if the tab was not created by an
+         * adapter or the adapter has no stable ids
+         */
+        public long getItemId() {
+            return mId;
+        }
+
         /**
          * Return the text of this tab.
          *
@@ -1496,23 +3377,75 @@ public class TvTabLayout extends HorizontalScrollView {
          */
         @NonNull
         public Tab setIcon(@Nullable Drawable icon) {
-            mIcon = icon;
-            updateView();
+            cancelIconRequest();
+            applyIcon(icon);
             return this;
         }
 
         /**
-         * Set the icon displayed on this tab.
+         * Set the icon displayed on this tab. If the layout has a {@link TabIconLoader} the
+         * icon is decoded by it, and its placeholder is shown until then.
          *
          * @param resId A resource ID referring to the icon that should be displayed
          * @return The current instance for call chaining
+         * @see TvTabLayout#setTabIconLoader(TabIconLoader)
          */
         @NonNull
         public Tab setIcon(@DrawableRes int resId) {
             if (mParent == null) {
                 throw new IllegalArgumentException("Tab not attached to a TabLayout");
             }
-            return setIcon(mParent.getResources().getDrawable(resId));
+            final TabIconLoader loader = mParent.mTabIconLoader;
+            if (loader == null) {
+                return setIcon(mParent.getResources().getDrawable(resId));
+            }
+            cancelIconRequest();
+            final int size = mParent.getTabIconSize(this);
+            setIconRequest(loader, loader.load(mParent.getContext(), resId, size, size,
+                    mIconCallback));
+            return this;
+        }
+
+        /**
+         * Set the icon displayed on this tab, decoded off the main thread by the layout's
+         * {@link TabIconLoader}, or {@link TabIconLoader#getDefault()} if it has none.
+         *
+         * @param uri A content, file or android.resource URI of the icon
+         * @return The current instance for call chaining
+         */
+        @NonNull
+        public Tab setIcon(@NonNull Uri uri) {
+            if (mParent == null) {
+                throw new IllegalArgumentException("Tab not attached to a TabLayout");
+            }
+            final TabIconLoader loader = mParent.mTabIconLoader != null
+                    ? mParent.mTabIconLoader : TabIconLoader.getDefault();
+            cancelIconRequest();
+            final int size = mParent.getTabIconSize(this);
+            setIconRequest(loader, loader.load(mParent.getContext(), uri, size, size,
+                    mIconCallback));
+            return this;
+        }
+
+        private void setIconRequest(TabIconLoader loader, TabIconLoader.Request request) {
+            if (request != null) {
+                // Still loading, a cached icon would have been applied already
+                mIconRequest = request;
+                applyIcon(loader.newPlaceholder(mParent.getResources()));
+            }
+        }
+
+        private void cancelIconRequest() {
+            if (mIconRequest != null) {
+                mIconRequest.cancel();
+                mIconRequest = null;
+            }
+        }
+
+        private void applyIcon(@Nullable Drawable icon) {
+            mIcon = icon;
+            invalidateMeasureCache();
+            updateView();
         }
 
         /**
@@ -1525,6 +3458,7 @@ public class TvTabLayout extends HorizontalScrollView {
         @NonNull
         public Tab setText(@Nullable CharSequence text) {
             mText = text;
+            invalidateMeasureCache();
             updateView();
             return this;
         }
@@ -1609,25 +3543,56 @@ public class TvTabLayout extends HorizontalScrollView {
             return mContentDesc;
         }
 
+        private void invalidateMeasureCache() {
+            if (mView != null) {
+                mView.invalidateMeasureCache();
+            }
+        }
+
         private void updateView() {
+            if (mParent != null && mParent.mBindingTab) {
+                // The view is updated once the adapter has finished binding this tab
+                return;
+            }
             if (mView != null) {
                 mView.update();
+            } else if (mParent != null && mPosition != INVALID_POSITION) {
+                // No view to re-measure, so forget the width we measured for the old content
+                mFlatTextLayout = null;
+                mParent.mTabStrip.invalidateTabWidth(mPosition);
             }
         }
 
+        private void releaseBoundContent() {
+            cancelIconRequest();
+            mIcon = null;
+            mText = null;
+            mContentDesc = null;
+            mCustomView = null;
+            mContentBound = false;
+            mFlatTextLayout = null;
+        }
+
         private void reset() {
+            cancelIconRequest();
+            mGeneration++;
             mParent = null;
             mView = null;
+            mId = TabAdapter.NO_ID;
+            mViewType = INVALID_VIEW_TYPE;
             mTag = null;
             mIcon = null;
             mText = null;
             mContentDesc = null;
             mPosition = INVALID_POSITION;
             mCustomView = null;
+            mContentBound = false;
+            mFlatTextLayout = null;
         }
     }
 
-    public class TabView extends LinearLayout implements OnLongClickListener {
+    public static class TabView extends LinearLayout implements OnLongClickListener {
+        private TvTabLayout mParent;
         private Tab mTab;
         private TextView mTextView;
         private ImageView mIconView;
@@ -1638,18 +3603,66 @@ public class TvTabLayout extends HorizontalScrollView {
 
         private int mDefaultMaxLines = 2;
 
+        // Set for the views created for a TabAdapter, which keep their custom view when recycled
+        private int mViewType = INVALID_VIEW_TYPE;
+        private View mRetainedCustomView;
+
+        // The size of the last measure pass and what it was measured from. Not used with a
+        // custom view, whose content may change behind our back.
+        private boolean mMeasureCacheValid;
+        private int mLastWidthMeasureSpec;
+        private int mLastHeightMeasureSpec;
+        private int mLastMinWidth;
+        private CharSequence mLastText;
+        private float mLastTextSize;
+        private Typeface mLastTypeface;
+        private int mLastPaintFlags;
+        private float mLastTextScaleX;
+        private TransformationMethod mLastTransformation;
+        private int mLastMeasuredWidthAndState;
+        private int mLastMeasuredHeightAndState;
+
+        // Scale and translation of the selection state, stepped by the layout's FrameTicker
+        private ValueAnimatorCompat mSelectionAnimator;
+        private float mSelectionStartScale;
+        private float mSelectionTargetScale;
+        private float mSelectionStartTranslationY;
+        private float mSelectionTargetTranslationY;
+        // Whether the hardware layer of this view was set for the selection animation
+        private boolean mHoldsSelectionLayer;
+        private boolean mRetargetingSelection;
+
         public TabView(Context context) {
             super(context);
-            if (mTabBackgroundResId != 0) {
-                setBackgroundDrawable(getResources().getDrawable(mTabBackgroundResId));
-            }
-            ViewCompat.setPaddingRelative(this, mTabPaddingStart, mTabPaddingTop,
-                    mTabPaddingEnd, mTabPaddingBottom);
             setGravity(Gravity.CENTER);
             setOrientation(VERTICAL);
             setClickable(true);
         }
 
+        /**
+         * Binds this view to the layout it is about to be shown in. Pooled views may be shared
+         * by several layouts, so they take the styling of whichever layout acquires them.
+         */
+        void bindParent(@NonNull TvTabLayout parent) {
+            if (parent == mParent) {
+                return;
+            }
+            mParent = parent;
+            if (parent.mTabBackgroundResId != 0) {
+                setBackgroundDrawable(getResources().getDrawable(parent.mTabBackgroundResId));
+            } else {
+                setBackgroundDrawable(null);
+            }
+            ViewCompat.setPaddingRelative(this, parent.mTabPaddingStart, parent.mTabPaddingTop,
+                    parent.mTabPaddingEnd, parent.mTabPaddingBottom);
+            invalidateMeasureCache();
+            // The animator runs on the frame ticker of the previous layout
+            if (mSelectionAnimator != null) {
+                mSelectionAnimator.cancel();
+                mSelectionAnimator = null;
+            }
+        }
+
         @Override
         public boolean performClick() {
             final boolean value = super.performClick();
@@ -1668,6 +3681,11 @@ public class TvTabLayout extends HorizontalScrollView {
 
             super.setSelected(selected);
 
+            if (changed) {
+                // The state may pick another background or text appearance
+                invalidateMeasureCache();
+            }
+
             if (changed && selected && Build.VERSION.SDK_INT < 16) {
                 // Pre-JB we need to manually send the TYPE_VIEW_SELECTED event
                 sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
@@ -1706,7 +3724,7 @@ public class TvTabLayout extends HorizontalScrollView {
         public void onMeasure(final int origWidthMeasureSpec, final int origHeightMeasureSpec) {
             final int specWidthSize = MeasureSpec.getSize(origWidthMeasureSpec);
             final int specWidthMode = MeasureSpec.getMode(origWidthMeasureSpec);
-            final int maxWidth = getTabMaxWidth();
+            final int maxWidth = mParent.getTabMaxWidth();
 
             final int widthMeasureSpec;
             final int heightMeasureSpec = origHeightMeasureSpec;
@@ -1715,19 +3733,92 @@ public class TvTabLayout extends HorizontalScrollView {
                     || specWidthSize > maxWidth)) {
                 // If we have a max width and a given spec which is either unspecified or
                 // larger than the max width, update the width spec using the same mode
-                widthMeasureSpec = MeasureSpec.makeMeasureSpec(mTabMaxWidth, MeasureSpec.AT_MOST);
+                widthMeasureSpec = MeasureSpec.makeMeasureSpec(mParent.mTabMaxWidth,
+                        MeasureSpec.AT_MOST);
             } else {
                 // Else, use the original width spec
                 widthMeasureSpec = origWidthMeasureSpec;
             }
 
+            final int minWidth = mParent.getTabMinWidth();
+            if (mMeasureCacheValid && mCustomView == null
+                    && widthMeasureSpec == mLastWidthMeasureSpec
+                    && heightMeasureSpec == mLastHeightMeasureSpec
+                    && minWidth == mLastMinWidth
+                    && isTextUnchanged()) {
+                // Same content and constraints as last time, so the same size. The children
+                // still hold the measurements of that pass.
+                setMeasuredDimension(mLastMeasuredWidthAndState, mLastMeasuredHeightAndState);
+                return;
+            }
+
+            measureTab(widthMeasureSpec, heightMeasureSpec);
+
+            mMeasureCacheValid = true;
+            mLastWidthMeasureSpec = widthMeasureSpec;
+            mLastHeightMeasureSpec = heightMeasureSpec;
+            mLastMinWidth = minWidth;
+            rememberText();
+            mLastMeasuredWidthAndState = getMeasuredWidthAndState();
+            mLastMeasuredHeightAndState = getMeasuredHeightAndState();
+        }
+
+        /**
+         * Forgets the size of the last measure pass, the next one measures the content again.
+         */
+        void invalidateMeasureCache() {
+            mMeasureCacheValid = false;
+            mLastText = null;
+            mLastTypeface = null;
+            mLastTransformation = null;
+        }
+
+        /**
+         * @return true if the label is styled and reads as it did in the last measure pass
+         */
+        private boolean isTextUnchanged() {
+            if (mTextView == null) {
+                return mLastText == null;
+            }
+            final TextPaint paint = mTextView.getPaint();
+            return TextUtils.equals(mTextView.getText(), mLastText)
+                    && mTextView.getTextSize() == mLastTextSize
+                    && mTextView.getTypeface() == mLastTypeface
+                    && paint.getFlags() == mLastPaintFlags
+                    && paint.getTextScaleX() == mLastTextScaleX
+                    && mTextView.getTransformationMethod() == mLastTransformation;
+        }
+
+        private void rememberText() {
+            if (mTextView == null) {
+                mLastText = null;
+                return;
+            }
+            final TextPaint paint = mTextView.getPaint();
+            mLastText = mTextView.getText();
+            mLastTextSize = mTextView.getTextSize();
+            mLastTypeface = mTextView.getTypeface();
+            mLastPaintFlags = paint.getFlags();
+            mLastTextScaleX = paint.getTextScaleX();
+            mLastTransformation = mTextView.getTransformationMethod();
+        }
+
+        private void measureTab(final int widthMeasureSpec, final int heightMeasureSpec) {
+            final boolean textSizeResolved = resolveTextSizeFromCache(widthMeasureSpec);
+
             // Now lets measure
             super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
+            if (textSizeResolved && (mTextView.getLineCount() <= 1
+                    || mTextView.getTextSize() == mParent.mTabTextMultiLineSize)) {
+                // The cached metrics were right, no need to switch the size and measure again
+                return;
+            }
+
             // We need to switch the text size based on whether the text is spanning 2 lines or not
             if (mTextView != null) {
                 final Resources res = getResources();
-                float textSize = mTabTextSize;
+                float textSize = mParent.mTabTextSize;
                 int maxLines = mDefaultMaxLines;
 
                 if (mIconView != null && mIconView.getVisibility() == VISIBLE) {
@@ -1735,7 +3826,7 @@ public class TvTabLayout extends HorizontalScrollView {
                     maxLines = 1;
                 } else if (mTextView != null && mTextView.getLineCount() > 1) {
                     // Otherwise when we have text which wraps we reduce the text size
-                    textSize = mTabTextMultiLineSize;
+                    textSize = mParent.mTabTextMultiLineSize;
                 }
 
                 final float curTextSize = mTextView.getTextSize();
@@ -1746,7 +3837,8 @@ public class TvTabLayout extends HorizontalScrollView {
                     // We've got a new text size and/or max lines...
                     boolean updateTextView = true;
 
-                    if (mScrollMode == MODE_FIXED && textSize > curTextSize && curLineCount == 1) {
+                    if (mParent.mScrollMode == MODE_FIXED && textSize > curTextSize
+                            && curLineCount == 1) {
                         // If we're in fixed mode, going up in text size and currently have 1 line
                         // then it's very easy to get into an infinite recursion.
                         // To combat that we check to see if the change in text size
@@ -1768,21 +3860,156 @@ public class TvTabLayout extends HorizontalScrollView {
             }
         }
 
+        /**
+         * Sets the text size and max lines the text will end up with from the cached metrics
+         * of the label, before the text gets laid out.
+         *
+         * @return false if the size could not be worked out up front
+         */
+        private boolean resolveTextSizeFromCache(int widthMeasureSpec) {
+            if (mTextView == null || mTextView.getVisibility() != VISIBLE
+                    || (mIconView != null && mIconView.getVisibility() == VISIBLE)) {
+                return false;
+            }
+            final CharSequence text = mTextView.getText();
+            if (TextUtils.isEmpty(text)) {
+                return false;
+            }
+            final int availableWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED
+                    ? Integer.MAX_VALUE
+                    : MeasureSpec.getSize(widthMeasureSpec) - getPaddingLeft() - getPaddingRight();
+            if (availableWidth <= 0) {
+                return false;
+            }
+            // Looked up on a single line, so that the labels measured up front by
+            // addTabsAsync() are hits whatever width the tab ends up with. A label wraps when
+            // it is wider than the available width.
+            final TextMeasureCache.Metrics metrics = mParent.mTextMeasureCache.measure(text,
+                    mParent.getMeasurePaint(mTextView.getPaint(), mParent.mTabTextSize),
+                    Integer.MAX_VALUE);
+            final float textSize = metrics.width > availableWidth
+                    ? mParent.mTabTextMultiLineSize : mParent.mTabTextSize;
+            if (textSize != mTextView.getTextSize()) {
+                mTextView.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+            }
+            if (TextViewCompat.getMaxLines(mTextView) != mDefaultMaxLines) {
+                mTextView.setMaxLines(mDefaultMaxLines);
+            }
+            return true;
+        }
+
         private void setTab(@Nullable final Tab tab) {
             if (tab != mTab) {
                 mTab = tab;
+                invalidateMeasureCache();
                 update();
             }
         }
 
+        /**
+         * Animates the scale and vertical translation of this view from their current values,
+         * on the frame clock of the layout.
+         *
+         * @param interpolator the interpolator, best a shared instance
+         * @param withLayer whether to render the view into a hardware layer while it animates,
+         *                  which is released once the animation ends
+         */
+        public void animateSelectionState(float scale, float translationY,
+                @NonNull Interpolator interpolator, int duration, boolean withLayer) {
+            if (mSelectionAnimator == null) {
+                mSelectionAnimator = ViewUtils.createAnimator(mParent.getFrameTicker());
+                mSelectionAnimator.setFloatValues(0, 1);
+                mSelectionAnimator.setUpdateListener(new ValueAnimatorCompat.AnimatorUpdateListener() {
+                    @Override
+                    public void onAnimationUpdate(ValueAnimatorCompat animator) {
+                        final float fraction = animator.getAnimatedFraction();
+                        final float scale = AnimationUtils.lerp(mSelectionStartScale,
+                                mSelectionTargetScale, fraction);
+                        setScaleX(scale);
+                        setScaleY(scale);
+                        setTranslationY(AnimationUtils.lerp(mSelectionStartTranslationY,
+                                mSelectionTargetTranslationY, fraction));
+                    }
+                });
+                mSelectionAnimator.setListener(new ValueAnimatorCompat.AnimatorListenerAdapter() {
+                    @Override
+                    public void onAnimationEnd(ValueAnimatorCompat animator) {
+                        if (!mRetargetingSelection) {
+                            releaseSelectionLayer();
+                        }
+                    }
+                });
+            } else if (mSelectionAnimator.isRunning()) {
+                // Keep the layer, the animation goes on towards the new values
+                mRetargetingSelection = true;
+                mSelectionAnimator.cancel();
+                mRetargetingSelection = false;
+            }
+            if (withLayer && !mHoldsSelectionLayer
+                    && ViewCompat.getLayerType(this) == ViewCompat.LAYER_TYPE_NONE) {
+                ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_HARDWARE, null);
+                mHoldsSelectionLayer = true;
+            } else if (!withLayer) {
+                releaseSelectionLayer();
+            }
+            mSelectionStartScale = getScaleX();
+            mSelectionTargetScale = scale;
+            mSelectionStartTranslationY = getTranslationY();
+            mSelectionTargetTranslationY = translationY;
+            mSelectionAnimator.setInterpolator(interpolator);
+            mSelectionAnimator.setDuration(duration);
+            mSelectionAnimator.start();
+        }
+
+        private void releaseSelectionLayer() {
+            if (mHoldsSelectionLayer) {
+                mHoldsSelectionLayer = false;
+                ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_NONE, null);
+            }
+        }
+
         private void reset() {
             setTab(null);
             setSelected(false);
+            setActivated(false);
+            resetSelectionState();
+        }
+
+        /**
+         * Stops the selection animation and puts the view back to its unselected scale and
+         * translation.
+         */
+        void resetSelectionState() {
+            if (mSelectionAnimator != null) {
+                mSelectionAnimator.cancel();
+            }
+            setScaleX(1f);
+            setScaleY(1f);
+            setTranslationY(0);
+        }
+
+        /**
+         * Inflates the built-in icon and text views, if they have not been already.
+         */
+        void inflateDefaultContent() {
+            if (mIconView == null) {
+                ImageView iconView = (ImageView) LayoutInflater.from(getContext())
+                        .inflate(R.layout.tab_layout_tab_icon, this, false);
+                addView(iconView, 0);
+                mIconView = iconView;
+            }
+            if (mTextView == null) {
+                TextView textView = (TextView) LayoutInflater.from(getContext())
+                        .inflate(R.layout.tab_layout_tab_text, this, false);
+                addView(textView);
+                mTextView = textView;
+                mDefaultMaxLines = TextViewCompat.getMaxLines(mTextView);
+            }
         }
 
         final void update() {
             final Tab tab = mTab;
-            final View custom = tab != null ? tab.getCustomView() : null;
+            final View custom = tab != null ? tab.getCustomView() : mRetainedCustomView;
             if (custom != null) {
                 final ViewParent customParent = custom.getParent();
                 if (customParent != this) {
@@ -1817,21 +4044,9 @@ public class TvTabLayout extends HorizontalScrollView {
 
             if (mCustomView == null) {
                 // If there isn't a custom view, we'll us our own in-built layouts
-                if (mIconView == null) {
-                    ImageView iconView = (ImageView) LayoutInflater.from(getContext())
-                            .inflate(R.layout.tab_layout_tab_icon, this, false);
-                    addView(iconView, 0);
-                    mIconView = iconView;
-                }
-                if (mTextView == null) {
-                    TextView textView = (TextView) LayoutInflater.from(getContext())
-                            .inflate(R.layout.tab_layout_tab_text, this, false);
-                    addView(textView);
-                    mTextView = textView;
-                    mDefaultMaxLines = TextViewCompat.getMaxLines(mTextView);
-                }
-                if (mTabTextColors != null) {
-                    mTextView.setTextColor(mTabTextColors);
+                inflateDefaultContent();
+                if (mParent.mTabTextColors != null) {
+                    mTextView.setTextColor(mParent.mTabTextColors);
                 }
                 updateTextAndIcon(mTextView, mIconView);
             } else {
@@ -1843,6 +4058,9 @@ public class TvTabLayout extends HorizontalScrollView {
 
             // Finally update our selected state
             setSelected(tab != null && tab.isSelected());
+            if (mParent != null) {
+                mParent.invalidateTabViewStates();
+            }
         }
 
         private void updateTextAndIcon(@Nullable final TextView textView,
@@ -1881,7 +4099,7 @@ public class TvTabLayout extends HorizontalScrollView {
                 int bottomMargin = 0;
                 if (hasText && iconView.getVisibility() == VISIBLE) {
                     // If we're showing both text and icon, add some margin bottom to the icon
-                    bottomMargin = dpToPx(DEFAULT_GAP_TEXT_ICON);
+                    bottomMargin = mParent.dpToPx(DEFAULT_GAP_TEXT_ICON);
                 }
                 if (bottomMargin != lp.bottomMargin) {
                     lp.bottomMargin = bottomMargin;
@@ -1924,119 +4142,676 @@ public class TvTabLayout extends HorizontalScrollView {
                 // Show along the bottom center
                 cheatSheet.setGravity(Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL, 0, height);
             }
-            cheatSheet.show();
-            return true;
+            cheatSheet.show();
+            return true;
+        }
+
+        public Tab getTab() {
+            return mTab;
+        }
+
+        /**
+         * Approximates a given lines width with the new provided text size.
+         */
+        private float approximateLineWidth(Layout layout, int line, float textSize) {
+            return layout.getLineWidth(line) * (textSize / layout.getPaint().getTextSize());
+        }
+    }
+
+    protected class SlidingTabStrip extends LinearLayout {
+        private int mIndicatorHeight;
+        private int mIndicatorWidth;
+        private Drawable mIndicatorDrawable;
+
+        private int mSelectedPosition = -1;
+        private float mSelectionOffset;
+
+        private int mIndicatorLeft = -1;
+        private int mIndicatorRight = -1;
+        private int mIndicatorTop = -1;
+        private int mIndicatorBottom = -1;
+
+        private Paint mIndicatorBackgroundPaint;
+        private Paint mCircleDotPaint;
+        private int mIndicatorBackgroundHeight;
+        private int mCircleDotRadius;
+
+        private int mIndicatorBackgroundLeft;
+        private int mIndicatorBackgroundRight;
+        private int mIndicatorBackgroundTop;
+        private int mIndicatorBackgroundBottom;
+
+        // The background bar and the circle dots around the visible window, drawn once and
+        // blitted on every frame. Only rebuilt when the layout or their style changes, or when
+        // the strip is scrolled out of the cached part.
+        private Bitmap mStaticLayer;
+        private Canvas mStaticLayerCanvas;
+        private int mStaticLayerLeft;
+        private int mStaticLayerTop;
+        private boolean mStaticLayerDirty = true;
+
+        // One circle per tab near the visible window at the center of its geometry, drawn in
+        // a single call
+        private final Path mCircleDotPath = new Path();
+        private boolean mCircleDotPathDirty = true;
+        private int mCircleDotPathY;
+        private int mCircleDotFirst;
+        private int mCircleDotLast = -1;
+
+        // A single indicator animator is retargeted for every selection, so that moving the
+        // indicator does not allocate
+        private ValueAnimatorCompat mIndicatorAnimator;
+        private int mAnimationStartLeft;
+        private int mAnimationStartRight;
+        private int mAnimationTargetLeft;
+        private int mAnimationTargetRight;
+        private int mAnimationTargetPosition;
+
+        // Used instead of mIndicatorAnimator in MOTION_SPRING
+        private SpringMotion mIndicatorLeftSpring;
+        private SpringMotion mIndicatorRightSpring;
+
+        // Geometry of every tab, including those without a view
+        private final TabGeometryIndex mGeometry = new TabGeometryIndex();
+        private int mVirtualHeightMeasureSpec;
+        // Space before the first tab, used to center fixed tabs in flat render mode
+        private int mTabContentOffset;
+
+        // Used to draw the tabs in flat render mode
+        private FlatTabRenderer mFlatTabRenderer;
+        private int mFlatTouchPosition = Tab.INVALID_POSITION;
+        // The limits the flat tab widths were measured within, they are all measured again
+        // once these change
+        private int mFlatMeasuredMinWidth = -1;
+        private int mFlatMeasuredMaxWidth = -1;
+        private int mFlatMeasuredScrollMode = -1;
+        // The tallest flat tab measured since the widths were last invalidated
+        private int mFlatMaxTabHeight;
+
+        private final Runnable mRequestLayoutRunnable = new Runnable() {
+            @Override
+            public void run() {
+                requestLayout();
+            }
+        };
+
+        SlidingTabStrip(Context context) {
+            super(context);
+            setWillNotDraw(false);
+            mIndicatorBackgroundPaint = new Paint();
+            mIndicatorBackgroundPaint.setAntiAlias(true);
+            mCircleDotPaint = new Paint();
+            mCircleDotPaint.setAntiAlias(true);
+        }
+
+        void setIndicatorBackgroundColor(int color) {
+            if (mIndicatorBackgroundPaint.getColor() != color) {
+                mIndicatorBackgroundPaint.setColor(color);
+                invalidateStaticLayer();
+            }
+        }
+
+        public void setIndicatorBackgroundHeight(int height) {
+            if(mIndicatorBackgroundHeight != height) {
+                mIndicatorBackgroundHeight = height;
+                invalidateStaticLayer();
+            }
+        }
+
+        void setIndicatorDrawable(Drawable indicatorDrawable) {
+            if(mIndicatorDrawable != indicatorDrawable) {
+                mIndicatorDrawable = indicatorDrawable;
+                ViewCompat.postInvalidateOnAnimation(this);
+            }
+        }
+
+        void setIndicatorHeight(int height) {
+            if (mIndicatorHeight != height) {
+                mIndicatorHeight = height;
+                invalidateStaticLayer();
+            }
+        }
+
+        void setIndicatorWidth(int width) {
+            if(mIndicatorWidth != width) {
+                mIndicatorWidth = width;
+                ViewCompat.postInvalidateOnAnimation(this);
+            }
+        }
+
+        void setCircleDotRadius(int radius) {
+            if (mCircleDotRadius != radius) {
+                mCircleDotRadius = radius;
+                mCircleDotPathDirty = true;
+                invalidateStaticLayer();
+            }
+        }
+
+        void setCircleDotColor(int color) {
+            if (mCircleDotPaint.getColor() != color) {
+                mCircleDotPaint.setColor(color);
+                invalidateStaticLayer();
+            }
+        }
+
+        /**
+         * Rebuilds the background bar and the circle dots on the next draw.
+         */
+        void invalidateStaticLayer() {
+            mStaticLayerDirty = true;
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+
+        void insertTabGeometry(int position) {
+            mGeometry.insert(position);
+        }
+
+        void removeTabGeometry(int position) {
+            removeTabGeometry(position, 1);
+        }
+
+        void removeTabGeometry(int position, int count) {
+            mGeometry.remove(position, count);
+        }
+
+        void addTabViewInLayout(View child, int index, LayoutParams params) {
+            addViewInLayout(child, index, params, true);
+        }
+
+        void clearTabGeometry() {
+            mGeometry.clear();
+            mFlatMaxTabHeight = 0;
+        }
+
+        /**
+         * Forgets the width of every tab, so that the flat tabs are all measured again.
+         */
+        void invalidateFlatTabWidths() {
+            for (int i = 0, z = mGeometry.size(); i < z; i++) {
+                mGeometry.invalidateWidth(i);
+            }
+            mFlatMaxTabHeight = 0;
+            mFlatMeasuredMinWidth = getTabMinWidth();
+            mFlatMeasuredMaxWidth = getTabMaxWidth();
+            mFlatMeasuredScrollMode = mScrollMode;
+        }
+
+        void invalidateTabWidth(int position) {
+            if (position < mGeometry.size() && mGeometry.invalidateWidth(position)) {
+                if (usesTabGeometry()) {
+                    requestLayout();
+                }
+            }
+        }
+
+        /**
+         * @return true if the width differs from the one used so far for this tab
+         */
+        private boolean setMeasuredTabWidth(int position, int width) {
+            return mGeometry.setWidth(position, width);
+        }
+
+        /**
+         * Returns the position of the tab which contains the given x, relative to the start of
+         * the virtualized content.
+         */
+        private int findVirtualTabAt(int x) {
+            return mGeometry.findPositionAt(x);
+        }
+
+        /**
+         * Returns the left edge of the tab at {@code position}, whether or not it has a view.
+         */
+        int getTabLeft(int position) {
+            if (position < 0 || position >= mGeometry.size()) {
+                return 0;
+            }
+            if (!usesTabGeometry()) {
+                final View child = getTabViewAt(position);
+                if (child != null && mGeometry.isWidthKnown(position)) {
+                    // Where the view was laid out, which is also right in right-to-left layouts
+                    return child.getLeft();
+                }
+            }
+            return getPaddingLeft() + mTabContentOffset + mGeometry.getLeft(position);
+        }
+
+        /**
+         * Returns the width of the tab at {@code position}, whether or not it has a view.
+         */
+        int getTabWidth(int position) {
+            if (position < 0 || position >= mGeometry.size()) {
+                return 0;
+            }
+            return mGeometry.getWidth(position);
+        }
+
+        @Nullable
+        private TabView getTabViewAt(int position) {
+            final TabView tabView = position < mTabs.size() ? mTabs.get(position).mView : null;
+            return tabView != null && tabView.getParent() == this ? tabView : null;
+        }
+
+        int getTabPositionOfChild(int index) {
+            if (!isTabVirtualized()) {
+                return index;
+            }
+            final Tab tab = ((TabView) getChildAt(index)).getTab();
+            return tab != null ? tab.getPosition() : Tab.INVALID_POSITION;
+        }
+
+        /**
+         * Binds views for the tabs inside the visible window (plus a margin) and recycles the
+         * views of the tabs which left it.
+         */
+        void updateVisibleTabViews(boolean inLayout) {
+            if (mTabFlatRenderEnabled) {
+                measureVisibleFlatTabs(inLayout);
+                return;
+            }
+            if (!isTabVirtualized()) {
+                return;
+            }
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            int first = 0;
+            int last = -1;
+            if (count > 0) {
+                final int viewportStart = TvTabLayout.this.getScrollX() - getPaddingLeft();
+                final int viewportEnd = viewportStart + TvTabLayout.this.getWidth();
+                first = Math.max(0, findVirtualTabAt(viewportStart) - VIRTUALIZED_EXTRA_TABS);
+                last = Math.min(count - 1, findVirtualTabAt(viewportEnd) + VIRTUALIZED_EXTRA_TABS);
+            }
+
+            boolean viewsChanged = false;
+            for (int i = getChildCount() - 1; i >= 0; i--) {
+                final int position = getTabPositionOfChild(i);
+                if (position < first || position > last) {
+                    final TabView tabView = (TabView) getChildAt(i);
+                    removeViewInLayout(tabView);
+                    recycleTabView(tabView);
+                    viewsChanged = true;
+                }
+            }
+
+            boolean geometryChanged = false;
+            for (int position = first; position <= last; position++) {
+                final Tab tab = mTabs.get(position);
+                if (tab.mView == null) {
+                    final TabView tabView = createTabView(tab);
+                    tab.mView = tabView;
+                    addViewInLayout(tabView, -1, createLayoutParamsForTabs(), true);
+                    geometryChanged |= measureVirtualTabView(tabView, position);
+                    applyTabViewState(tabView, position);
+                    if (!inLayout) {
+                        layoutVirtualTabView(tabView, position);
+                    }
+                    viewsChanged = true;
+                }
+            }
+
+            if (geometryChanged) {
+                // The newly bound tabs are not as wide as estimated, so the offsets have moved
+                if (inLayout) {
+                    post(mRequestLayoutRunnable);
+                } else {
+                    requestLayout();
+                }
+            }
+            if (viewsChanged) {
+                invalidate();
+            }
         }
 
-        public Tab getTab() {
-            return mTab;
+        /**
+         * Unbinds the views of the tabs outside the visible window, without the margin
+         * {@link #updateVisibleTabViews(boolean)} keeps.
+         *
+         * @return the number of views unbound
+         */
+        int releaseOffscreenTabViews() {
+            if (!isTabVirtualized()) {
+                return 0;
+            }
+            final int viewportStart = TvTabLayout.this.getScrollX() - getPaddingLeft();
+            final int first = findVirtualTabAt(viewportStart);
+            final int last = findVirtualTabAt(viewportStart + TvTabLayout.this.getWidth());
+            int released = 0;
+            for (int i = getChildCount() - 1; i >= 0; i--) {
+                final int position = getTabPositionOfChild(i);
+                if (position < first || position > last) {
+                    final TabView tabView = (TabView) getChildAt(i);
+                    removeViewInLayout(tabView);
+                    recycleTabView(tabView);
+                    released++;
+                }
+            }
+            if (released > 0) {
+                invalidate();
+            }
+            return released;
         }
 
         /**
-         * Approximates a given lines width with the new provided text size.
+         * Drops the label layouts of the flat tabs outside the visible window. They are built
+         * again when drawn.
+         *
+         * @return the number of layouts dropped
          */
-        private float approximateLineWidth(Layout layout, int line, float textSize) {
-            return layout.getLineWidth(line) * (textSize / layout.getPaint().getTextSize());
+        int releaseOffscreenFlatTextLayouts() {
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            if (!mTabFlatRenderEnabled || count == 0) {
+                return 0;
+            }
+            final int viewportStart = getFlatViewportStart();
+            final int first = findVirtualTabAt(viewportStart);
+            final int last = findVirtualTabAt(viewportStart + TvTabLayout.this.getWidth());
+            int released = 0;
+            for (int position = 0; position < count; position++) {
+                final Tab tab = mTabs.get(position);
+                if ((position < first || position > last) && tab.mFlatTextLayout != null) {
+                    tab.mFlatTextLayout = null;
+                    released++;
+                }
+            }
+            return released;
+        }
+
+        private boolean measureVirtualTabView(View child, int position) {
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            final int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+            final int childHeightMeasureSpec = getChildMeasureSpec(mVirtualHeightMeasureSpec,
+                    getPaddingTop() + getPaddingBottom(), lp.height);
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            return setMeasuredTabWidth(position, child.getMeasuredWidth());
+        }
+
+        private void layoutVirtualTabView(View child, int position) {
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            final int childWidth = child.getMeasuredWidth();
+            final int childHeight = child.getMeasuredHeight();
+            final int left = getTabLeft(position) + (getTabWidth(position) - childWidth) / 2;
+            final int top;
+            switch (lp.gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+                case Gravity.TOP:
+                    top = getPaddingTop();
+                    break;
+                case Gravity.BOTTOM:
+                    top = getHeight() - getPaddingBottom() - childHeight;
+                    break;
+                default:
+                    top = getPaddingTop()
+                            + (getHeight() - getPaddingTop() - getPaddingBottom() - childHeight) / 2;
+                    break;
+            }
+            child.layout(left, top, left + childWidth, top + childHeight);
         }
-    }
 
-    protected class SlidingTabStrip extends LinearLayout {
-        private int mIndicatorHeight;
-        private int mIndicatorWidth;
-        private Drawable mIndicatorDrawable;
+        private void onMeasureVirtualized(int widthMeasureSpec, int heightMeasureSpec) {
+            mVirtualHeightMeasureSpec = heightMeasureSpec;
+            mTabContentOffset = 0;
+            mGeometry.setFallbackWidth(getTabMinWidth());
+            int maxChildHeight = 0;
+            for (int i = 0, z = getChildCount(); i < z; i++) {
+                final View child = getChildAt(i);
+                final int position = getTabPositionOfChild(i);
+                if (position != Tab.INVALID_POSITION) {
+                    measureVirtualTabView(child, position);
+                    maxChildHeight = Math.max(maxChildHeight, child.getMeasuredHeight());
+                }
+            }
+            final int contentWidth = getPaddingLeft() + mGeometry.getTotalWidth()
+                    + getPaddingRight();
+            final int width = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY
+                    ? MeasureSpec.getSize(widthMeasureSpec) : contentWidth;
+            setMeasuredDimension(width, resolveSize(
+                    maxChildHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec));
+        }
 
-        private int mSelectedPosition = -1;
-        private float mSelectionOffset;
+        /**
+         * Creates the renderer of the flat tabs on first use and hands it the current tab style.
+         */
+        private void updateFlatTabRenderer() {
+            if (mFlatTabRenderer == null) {
+                mFlatTabRenderer = new FlatTabRenderer(getContext(), mTabBackgroundResId,
+                        dpToPx(FlatTabRenderer.ICON_SIZE), dpToPx(DEFAULT_GAP_TEXT_ICON));
+            }
+            mFlatTabRenderer.setTextStyle(mTabTextSize, mTabTextColors, mTextMeasureCache);
+            mFlatTabRenderer.setTabPadding(mTabPaddingStart, mTabPaddingTop, mTabPaddingEnd,
+                    mTabPaddingBottom);
+            mFlatTabRenderer.setTabWidthLimits(getTabMinWidth(), getTabMaxWidth());
+            mFlatTabRenderer.setTabGravity(mTabGravity,
+                    mScrollMode == MODE_FIXED && mTabGravity == GRAVITY_FILL,
+                    mTabTextSelectedScaleValue);
+        }
 
-        private int mIndicatorLeft = -1;
-        private int mIndicatorRight = -1;
-        private int mIndicatorTop = -1;
-        private int mIndicatorBottom = -1;
+        /**
+         * Returns the cached single line label of {@code tab}, or null if it has no text.
+         */
+        @Nullable
+        private Layout getFlatTextLayout(@NonNull Tab tab) {
+            final int maxTextWidth = mFlatTabRenderer.getMaxTextWidth();
+            if (tab.mFlatTextLayout == null || tab.mFlatTextMaxWidth != maxTextWidth) {
+                tab.mFlatTextLayout = mFlatTabRenderer.createTextLayout(tab.getText());
+                tab.mFlatTextMaxWidth = maxTextWidth;
+            }
+            return tab.mFlatTextLayout;
+        }
 
-        private Paint mIndicatorBackgroundPaint;
-        private Paint mCircleDotPaint;
-        private int mIndicatorBackgroundHeight;
-        private int mCircleDotRadius;
+        /**
+         * Returns the left edge of the visible window, relative to the first flat tab.
+         */
+        private int getFlatViewportStart() {
+            return Math.max(0,
+                    TvTabLayout.this.getScrollX() - getPaddingLeft() - mTabContentOffset);
+        }
 
-        private int mIndicatorBackgroundLeft;
-        private int mIndicatorBackgroundRight;
-        private int mIndicatorBackgroundTop;
-        private int mIndicatorBackgroundBottom;
+        private int measureFlatTab(@NonNull Tab tab) {
+            if (tab.mViewType != INVALID_VIEW_TYPE && !tab.mContentBound) {
+                // Adapter tabs are bound once, their content stays while they are drawn
+                bindAdapterTab(tab, null);
+            }
+            mFlatMaxTabHeight = Math.max(mFlatMaxTabHeight, mFlatTabRenderer.getTabHeight(tab));
+            return mFlatTabRenderer.measureTabWidth(tab);
+        }
 
-        private ValueAnimatorCompat mIndicatorAnimator;
+        /**
+         * Binds and measures the adapter tabs which scrolled into the visible window (plus a
+         * margin) in flat render mode. Until then their width is estimated.
+         */
+        private void measureVisibleFlatTabs(boolean inLayout) {
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            if (count == 0 || !mGeometry.hasUnknownWidths()) {
+                return;
+            }
+            final int viewportStart = getFlatViewportStart();
+            final int first = Math.max(0, findVirtualTabAt(viewportStart) - VIRTUALIZED_EXTRA_TABS);
+            final int last = Math.min(count - 1, findVirtualTabAt(
+                    viewportStart + TvTabLayout.this.getWidth()) + VIRTUALIZED_EXTRA_TABS);
+            final int maxTabHeight = mFlatMaxTabHeight;
+            updateFlatTabRenderer();
+            boolean geometryChanged = false;
+            for (int position = first; position <= last; position++) {
+                if (!mGeometry.isWidthKnown(position)) {
+                    geometryChanged |= setMeasuredTabWidth(position,
+                            measureFlatTab(mTabs.get(position)));
+                }
+            }
 
-        SlidingTabStrip(Context context) {
-            super(context);
-            setWillNotDraw(false);
-            mIndicatorBackgroundPaint = new Paint();
-            mIndicatorBackgroundPaint.setAntiAlias(true);
-            mCircleDotPaint = new Paint();
-            mCircleDotPaint.setAntiAlias(true);
+            if (geometryChanged || mFlatMaxTabHeight != maxTabHeight) {
+                // The newly bound tabs are not as wide as estimated, so the offsets have moved
+                if (inLayout) {
+                    post(mRequestLayoutRunnable);
+                } else {
+                    requestLayout();
+                }
+                invalidate();
+            }
         }
 
-        void setIndicatorBackgroundColor(int color) {
-            if (mIndicatorBackgroundPaint.getColor() != color) {
-                mIndicatorBackgroundPaint.setColor(color);
-                ViewCompat.postInvalidateOnAnimation(this);
+        private void onMeasureFlat(int widthMeasureSpec, int heightMeasureSpec) {
+            mGeometry.setFallbackWidth(getTabMinWidth());
+            if (mFlatMeasuredMinWidth != getTabMinWidth()
+                    || mFlatMeasuredMaxWidth != getTabMaxWidth()
+                    || mFlatMeasuredScrollMode != mScrollMode) {
+                invalidateFlatTabWidths();
+            }
+            updateFlatTabRenderer();
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            // Fixed tabs share the width of the strip, so they are all on screen and all
+            // measured. Scrollable tabs keep their width until their content changes, and
+            // adapter tabs are only bound once they come near the visible window.
+            final boolean fixed = mScrollMode == MODE_FIXED;
+            int largestTabWidth = 0;
+            if (fixed || mGeometry.hasUnknownWidths()) {
+                final int viewportStart = getFlatViewportStart();
+                final int first = findVirtualTabAt(viewportStart) - VIRTUALIZED_EXTRA_TABS;
+                final int last = findVirtualTabAt(viewportStart + TvTabLayout.this.getWidth())
+                        + VIRTUALIZED_EXTRA_TABS;
+                for (int i = 0; i < count; i++) {
+                    if (!fixed && mGeometry.isWidthKnown(i)) {
+                        continue;
+                    }
+                    final Tab tab = mTabs.get(i);
+                    if (!fixed && tab.mViewType != INVALID_VIEW_TYPE && !tab.mContentBound
+                            && (i < first || i > last)) {
+                        continue;
+                    }
+                    final int width = measureFlatTab(tab);
+                    setMeasuredTabWidth(i, width);
+                    largestTabWidth = Math.max(largestTabWidth, width);
+                }
             }
-        }
 
-        public void setIndicatorBackgroundHeight(int height) {
-            if(mIndicatorBackgroundHeight != height) {
-                mIndicatorBackgroundHeight = height;
-                ViewCompat.postInvalidateOnAnimation(this);
+            mTabContentOffset = 0;
+            if (fixed && count > 0
+                    && MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY) {
+                // Same rules as the views get: equal widths while they fit, else fill
+                final int available = MeasureSpec.getSize(widthMeasureSpec)
+                        - getPaddingLeft() - getPaddingRight();
+                if (mTabGravity != GRAVITY_FILL && largestTabWidth * count
+                        <= available - dpToPx(FIXED_WRAP_GUTTER_MIN) * 2) {
+                    for (int i = 0; i < count; i++) {
+                        setMeasuredTabWidth(i, largestTabWidth);
+                    }
+                    mTabContentOffset = (available - largestTabWidth * count) / 2;
+                } else {
+                    final int remainder = available % count;
+                    for (int i = 0; i < count; i++) {
+                        setMeasuredTabWidth(i, available / count + (i < remainder ? 1 : 0));
+                    }
+                }
             }
+
+            final int contentWidth = getPaddingLeft() + mTabContentOffset
+                    + mGeometry.getTotalWidth() + getPaddingRight();
+            final int width = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY
+                    ? MeasureSpec.getSize(widthMeasureSpec) : contentWidth;
+            setMeasuredDimension(width, resolveSize(
+                    mFlatMaxTabHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec));
         }
 
-        void setIndicatorDrawable(Drawable indicatorDrawable) {
-            if(mIndicatorDrawable != indicatorDrawable) {
-                mIndicatorDrawable = indicatorDrawable;
-                ViewCompat.postInvalidateOnAnimation(this);
+        /**
+         * Returns the position of the flat tab at {@code x}, or {@link Tab#INVALID_POSITION}.
+         */
+        private int findFlatTabAt(int x) {
+            final int offset = x - getPaddingLeft() - mTabContentOffset;
+            if (mGeometry.size() == 0 || offset < 0 || offset >= mGeometry.getTotalWidth()) {
+                return Tab.INVALID_POSITION;
             }
+            return findVirtualTabAt(offset);
         }
 
-        void setIndicatorHeight(int height) {
-            if (mIndicatorHeight != height) {
-                mIndicatorHeight = height;
-                ViewCompat.postInvalidateOnAnimation(this);
+        @Override
+        public boolean onTouchEvent(MotionEvent event) {
+            if (!mTabFlatRenderEnabled) {
+                return super.onTouchEvent(event);
+            }
+            switch (event.getActionMasked()) {
+                case MotionEvent.ACTION_DOWN:
+                    mFlatTouchPosition = findFlatTabAt((int) event.getX());
+                    return mFlatTouchPosition != Tab.INVALID_POSITION;
+                case MotionEvent.ACTION_UP:
+                    final int position = findFlatTabAt((int) event.getX());
+                    if (position != Tab.INVALID_POSITION && position == mFlatTouchPosition
+                            && position < mTabs.size()) {
+                        mTabs.get(position).select();
+                    }
+                    mFlatTouchPosition = Tab.INVALID_POSITION;
+                    return true;
+                case MotionEvent.ACTION_CANCEL:
+                    mFlatTouchPosition = Tab.INVALID_POSITION;
+                    return true;
             }
+            return true;
         }
 
-        void setIndicatorWidth(int width) {
-            if(mIndicatorWidth != width) {
-                mIndicatorWidth = width;
-                ViewCompat.postInvalidateOnAnimation(this);
+        @Override
+        protected void onDraw(Canvas canvas) {
+            super.onDraw(canvas);
+            if (mTabFlatRenderEnabled) {
+                drawFlatTabs(canvas);
             }
         }
 
-        void setCircleDotRadius(int radius) {
-            if (mCircleDotRadius != radius) {
-                mCircleDotRadius = radius;
-                ViewCompat.postInvalidateOnAnimation(this);
+        private void drawFlatTabs(Canvas canvas) {
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            if (count == 0) {
+                return;
+            }
+            updateFlatTabRenderer();
+            // Only the tabs inside the visible window are drawn
+            final int viewportStart = getFlatViewportStart();
+            final int first = findVirtualTabAt(viewportStart);
+            final int last = Math.min(count - 1,
+                    findVirtualTabAt(viewportStart + TvTabLayout.this.getWidth()));
+            final int highlighted = getHighlightedTabPosition();
+            final boolean focused = TvTabLayout.this.hasFocus();
+            for (int position = first; position <= last; position++) {
+                final Tab tab = mTabs.get(position);
+                mFlatTabRenderer.drawTab(canvas, tab, getFlatTextLayout(tab),
+                        getTabLeft(position), getTabWidth(position), getPaddingTop(),
+                        getHeight() - getPaddingBottom(), position == highlighted, focused);
             }
         }
 
-        void setCircleDotColor(int color) {
-            if (mCircleDotPaint.getColor() != color) {
-                mCircleDotPaint.setColor(color);
-                ViewCompat.postInvalidateOnAnimation(this);
+        boolean childrenNeedLayout() {
+            if (usesTabGeometry()) {
+                // Virtualized tabs always have a (possibly estimated) geometry
+                return false;
             }
+            return mGeometry.hasUnknownWidths();
         }
 
-        boolean childrenNeedLayout() {
+        /**
+         * Copies the widths of the laid out tab views into the geometry index, so that the tabs
+         * are looked up the same way whether or not they are virtualized. Hidden tabs take no
+         * room, the others are measured again until they have been laid out.
+         */
+        private void recordChildGeometry() {
+            // The left edges are read from the views, see getTabLeft()
+            mTabContentOffset = 0;
             for (int i = 0, z = getChildCount(); i < z; i++) {
                 final View child = getChildAt(i);
-                if (child.getWidth() <= 0) {
-                    return true;
+                final Tab tab = child instanceof TabView ? ((TabView) child).getTab() : null;
+                final int position = tab != null ? tab.getPosition() : Tab.INVALID_POSITION;
+                if (position < 0 || position >= mGeometry.size()) {
+                    continue;
+                }
+                if (child.getVisibility() == GONE) {
+                    mGeometry.setWidth(position, 0);
+                } else if (child.getWidth() > 0) {
+                    mGeometry.setWidth(position, child.getWidth());
+                } else {
+                    mGeometry.invalidateWidth(position);
                 }
             }
-            return false;
         }
 
         void setIndicatorPositionFromTabPosition(int position, float positionOffset) {
             if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
                 mIndicatorAnimator.cancel();
             }
+            cancelIndicatorSprings();
 
             mSelectedPosition = position;
             mSelectionOffset = positionOffset;
@@ -2049,6 +4824,15 @@ public class TvTabLayout extends HorizontalScrollView {
 
         @Override
         protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+            if (mTabFlatRenderEnabled) {
+                onMeasureFlat(widthMeasureSpec, heightMeasureSpec);
+                return;
+            }
+            if (isTabVirtualized()) {
+                onMeasureVirtualized(widthMeasureSpec, heightMeasureSpec);
+                return;
+            }
+            mGeometry.setFallbackWidth(getTabMinWidth());
             super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
             if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY) {
@@ -2106,8 +4890,29 @@ public class TvTabLayout extends HorizontalScrollView {
 
         @Override
         protected void onLayout(boolean changed, int l, int t, int r, int b) {
-            super.onLayout(changed, l, t, r, b);
-            if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
+            if (mTabFlatRenderEnabled) {
+                // Nothing to lay out, the tabs are drawn from their geometry once the ones
+                // scrolled into view are measured
+                updateVisibleTabViews(true);
+            } else if (isTabVirtualized()) {
+                updateVisibleTabViews(true);
+                for (int i = 0, z = getChildCount(); i < z; i++) {
+                    final int position = getTabPositionOfChild(i);
+                    if (position != Tab.INVALID_POSITION) {
+                        layoutVirtualTabView(getChildAt(i), position);
+                    }
+                }
+            } else {
+                super.onLayout(changed, l, t, r, b);
+                recordChildGeometry();
+            }
+            // The dots follow the tabs
+            mStaticLayerDirty = true;
+            mCircleDotPathDirty = true;
+            if (isIndicatorSpringRunning()) {
+                // The springs keep their velocity and just head for the new geometry
+                springIndicatorToPosition(mAnimationTargetPosition);
+            } else if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
                 // If we're currently running an animation, lets cancel it and start a
                 // new animation with the remaining duration
                 mIndicatorAnimator.cancel();
@@ -2122,20 +4927,21 @@ public class TvTabLayout extends HorizontalScrollView {
         }
 
         private void updateIndicatorPosition() {
-            final View selectedTitle = getChildAt(mSelectedPosition);
+            final int selectedWidth = getTabWidth(mSelectedPosition);
             int left, right, indicatorOffset;
 
-            if (selectedTitle != null && selectedTitle.getWidth() > 0) {
-                left = selectedTitle.getLeft();
-                right = selectedTitle.getRight();
-                indicatorOffset = mIndicatorWidth > 0 ? (selectedTitle.getWidth() - mIndicatorWidth) / 2 : 0;
+            if (selectedWidth > 0) {
+                left = getTabLeft(mSelectedPosition);
+                right = left + selectedWidth;
+                indicatorOffset = mIndicatorWidth > 0 ? (selectedWidth - mIndicatorWidth) / 2 : 0;
 
-                if (mSelectionOffset > 0f && mSelectedPosition < getChildCount() - 1) {
+                if (mSelectionOffset > 0f && mSelectedPosition < mTabs.size() - 1) {
                     // Draw the selection partway between the tabs
-                    View nextTitle = getChildAt(mSelectedPosition + 1);
-                    left = (int) (mSelectionOffset * nextTitle.getLeft() +
+                    final int nextLeft = getTabLeft(mSelectedPosition + 1);
+                    final int nextRight = nextLeft + getTabWidth(mSelectedPosition + 1);
+                    left = (int) (mSelectionOffset * nextLeft +
                             (1.0f - mSelectionOffset) * left);
-                    right = (int) (mSelectionOffset * nextTitle.getRight() +
+                    right = (int) (mSelectionOffset * nextRight +
                             (1.0f - mSelectionOffset) * right);
                 }
                 left += indicatorOffset;
@@ -2168,26 +4974,59 @@ public class TvTabLayout extends HorizontalScrollView {
 
         private void updateIndicatorBackgroundBounds() {
             if(mIndicatorBackgroundHeight > 0) {
-                mIndicatorBackgroundLeft = 0;
-                mIndicatorBackgroundRight = getWidth();
-                mIndicatorBackgroundTop = mIndicatorTop + (mIndicatorHeight - mIndicatorBackgroundHeight) / 2;
-                mIndicatorBackgroundBottom = mIndicatorBackgroundTop + mIndicatorBackgroundHeight;
+                int left = 0;
+                int right = getWidth();
+                final int top = mIndicatorTop + (mIndicatorHeight - mIndicatorBackgroundHeight) / 2;
                 if(mCircleDotRadius > 0) {
-                    final View leftView = getChildAt(0);
-                    final View rightView = getChildAt(getChildCount() - 1);
-                    mIndicatorBackgroundLeft = null == leftView ? mRequestedTabMinWidth / 2 : leftView.getWidth() / 2;
-                    mIndicatorBackgroundRight = null == rightView ? getChildCount() * mRequestedTabMinWidth - mRequestedTabMinWidth / 2
-                            :  rightView.getRight() - rightView.getWidth() / 2;
+                    final int lastPosition = mTabs.size() - 1;
+                    left = lastPosition < 0 ? mRequestedTabMinWidth / 2
+                            : getTabLeft(0) + getTabWidth(0) / 2;
+                    right = lastPosition < 0 ? -mRequestedTabMinWidth / 2
+                            : getTabLeft(lastPosition) + getTabWidth(lastPosition) / 2;
+                }
+                if (left != mIndicatorBackgroundLeft || right != mIndicatorBackgroundRight
+                        || top != mIndicatorBackgroundTop) {
+                    mIndicatorBackgroundLeft = left;
+                    mIndicatorBackgroundRight = right;
+                    mIndicatorBackgroundTop = top;
+                    mIndicatorBackgroundBottom = top + mIndicatorBackgroundHeight;
+                    mStaticLayerDirty = true;
                 }
             }
         }
 
         private void setIndicatorPosition(int left, int right) {
             if (left != mIndicatorLeft || right != mIndicatorRight) {
-                // If the indicator's left/right has changed, invalidate
+                // If the indicator's left/right has changed, invalidate where it was and where
+                // it is now
+                final boolean wasDrawn = mIndicatorRight > mIndicatorLeft && mIndicatorLeft >= 0;
+                final boolean isDrawn = right > left && left >= 0;
+                final int dirtyLeft = !wasDrawn ? left : !isDrawn ? mIndicatorLeft
+                        : Math.min(left, mIndicatorLeft);
+                final int dirtyRight = !wasDrawn ? right : !isDrawn ? mIndicatorRight
+                        : Math.max(right, mIndicatorRight);
                 mIndicatorLeft = left;
                 mIndicatorRight = right;
+                if (wasDrawn || isDrawn) {
+                    invalidateIndicatorArea(dirtyLeft, dirtyRight);
+                }
+            }
+        }
+
+        private void invalidateIndicatorArea(int left, int right) {
+            final int top = mIndicatorTop;
+            final int bottom = mIndicatorBottom;
+            if (top >= bottom) {
+                // The bounds are not known yet
                 ViewCompat.postInvalidateOnAnimation(this);
+                return;
+            }
+            final FrameTicker ticker = getFrameTicker();
+            if (ticker != null) {
+                // Merged with the other invalidations of the current frame
+                ticker.invalidateHost(left, top, right, bottom);
+            } else {
+                ViewCompat.postInvalidateOnAnimation(this, left, top, right, bottom);
             }
         }
 
@@ -2195,19 +5034,20 @@ public class TvTabLayout extends HorizontalScrollView {
             if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
                 mIndicatorAnimator.cancel();
             }
+            cancelIndicatorSprings();
             final boolean isRtl = ViewCompat.getLayoutDirection(this)
                     == ViewCompat.LAYOUT_DIRECTION_RTL;
 
-            final View targetView = getChildAt(position);
-            if (targetView == null) {
-                // If we don't have a view, just update the position now and return
+            final int targetWidth = getTabWidth(position);
+            if (position < 0 || position >= mTabs.size()) {
+                // If we don't have such a tab, just update the position now and return
                 updateIndicatorPosition();
                 return;
             }
 
-            final int indicatorOffset = mIndicatorWidth > 0 ? (targetView.getWidth() - mIndicatorWidth) / 2 : 0;
-            final int targetLeft = targetView.getLeft() + indicatorOffset;
-            final int targetRight = targetView.getRight() - indicatorOffset;
+            final int indicatorOffset = mIndicatorWidth > 0 ? (targetWidth - mIndicatorWidth) / 2 : 0;
+            final int targetLeft = getTabLeft(position) + indicatorOffset;
+            final int targetRight = getTabLeft(position) + targetWidth - indicatorOffset;
             final int startLeft;
             final int startRight;
 
@@ -2236,37 +5076,201 @@ public class TvTabLayout extends HorizontalScrollView {
             }
 
             if (startLeft != targetLeft || startRight != targetRight) {
-                ValueAnimatorCompat animator = mIndicatorAnimator = ViewUtils.createAnimator();
-                animator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
+                mAnimationStartLeft = startLeft;
+                mAnimationStartRight = startRight;
+                mAnimationTargetLeft = targetLeft;
+                mAnimationTargetRight = targetRight;
+                mAnimationTargetPosition = position;
+
+                final ValueAnimatorCompat animator = getIndicatorAnimator();
                 animator.setDuration(duration);
+//                animator.setStartDelay(100); 修复tab过多进行scroll时Indicator抖动问题
+                animator.start();
+            }
+        }
+
+        /**
+         * Moves the indicator to {@code position} with springs. If the springs are already
+         * moving, only their targets change.
+         */
+        void springIndicatorToPosition(int position) {
+            if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
+                mIndicatorAnimator.cancel();
+            }
+            if (position < 0 || position >= mTabs.size()) {
+                cancelIndicatorSprings();
+                updateIndicatorPosition();
+                return;
+            }
+
+            final int targetWidth = getTabWidth(position);
+            final int indicatorOffset = mIndicatorWidth > 0 ? (targetWidth - mIndicatorWidth) / 2 : 0;
+            final int targetLeft = getTabLeft(position) + indicatorOffset;
+            final int targetRight = getTabLeft(position) + targetWidth - indicatorOffset;
+            mAnimationTargetPosition = position;
+
+            if (mIndicatorLeftSpring == null) {
+                final SpringMotion.Listener listener = new SpringMotion.Listener() {
+                    @Override
+                    public void onSpringUpdate(SpringMotion spring) {
+                        setIndicatorPosition(Math.round(mIndicatorLeftSpring.getValue()),
+                                Math.round(mIndicatorRightSpring.getValue()));
+                    }
+
+                    @Override
+                    public void onSpringAtRest(SpringMotion spring) {
+                        if (!isIndicatorSpringRunning()) {
+                            mSelectedPosition = mAnimationTargetPosition;
+                            mSelectionOffset = 0f;
+                        }
+                    }
+                };
+                mIndicatorLeftSpring = new SpringMotion(getFrameTicker(), listener);
+                mIndicatorRightSpring = new SpringMotion(getFrameTicker(), listener);
+            }
+
+            if (!isIndicatorSpringRunning()) {
+                if (mIndicatorLeft < 0 || mIndicatorRight <= mIndicatorLeft) {
+                    // Nothing drawn yet to move from, just place it
+                    mSelectedPosition = position;
+                    mSelectionOffset = 0f;
+                    setIndicatorPosition(targetLeft, targetRight);
+                    return;
+                }
+                mIndicatorLeftSpring.setValue(mIndicatorLeft);
+                mIndicatorRightSpring.setValue(mIndicatorRight);
+            }
+            mIndicatorLeftSpring.animateTo(targetLeft);
+            mIndicatorRightSpring.animateTo(targetRight);
+        }
+
+        boolean isIndicatorSpringRunning() {
+            return mIndicatorLeftSpring != null
+                    && (mIndicatorLeftSpring.isRunning() || mIndicatorRightSpring.isRunning());
+        }
+
+        private void cancelIndicatorSprings() {
+            if (mIndicatorLeftSpring != null) {
+                mIndicatorLeftSpring.cancel();
+                mIndicatorRightSpring.cancel();
+            }
+        }
+
+        /**
+         * Settles any indicator motion on its target.
+         */
+        void stopIndicatorMotion() {
+            if (mIndicatorAnimator != null && mIndicatorAnimator.isRunning()) {
+                mIndicatorAnimator.end();
+            }
+            if (isIndicatorSpringRunning()) {
+                cancelIndicatorSprings();
+                mSelectedPosition = mAnimationTargetPosition;
+                mSelectionOffset = 0f;
+                updateIndicatorPosition();
+            }
+        }
+
+        private ValueAnimatorCompat getIndicatorAnimator() {
+            if (mIndicatorAnimator == null) {
+                final ValueAnimatorCompat animator = mIndicatorAnimator
+                        = ViewUtils.createAnimator(getFrameTicker());
+                animator.setInterpolator(AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR);
                 animator.setFloatValues(0, 1);
                 animator.setUpdateListener(new ValueAnimatorCompat.AnimatorUpdateListener() {
                     @Override
                     public void onAnimationUpdate(ValueAnimatorCompat animator) {
                         final float fraction = animator.getAnimatedFraction();
                         setIndicatorPosition(
-                                AnimationUtils.lerp(startLeft, targetLeft, fraction),
-                                AnimationUtils.lerp(startRight, targetRight, fraction));
+                                AnimationUtils.lerp(mAnimationStartLeft, mAnimationTargetLeft, fraction),
+                                AnimationUtils.lerp(mAnimationStartRight, mAnimationTargetRight, fraction));
                     }
                 });
                 animator.setListener(new ValueAnimatorCompat.AnimatorListenerAdapter() {
                     @Override
                     public void onAnimationEnd(ValueAnimatorCompat animator) {
-                        mSelectedPosition = position;
+                        mSelectedPosition = mAnimationTargetPosition;
                         mSelectionOffset = 0f;
                     }
                 });
-//                animator.setStartDelay(100); 修复tab过多进行scroll时Indicator抖动问题
-                animator.start();
             }
+            return mIndicatorAnimator;
         }
 
-        @Override
-        public void draw(Canvas canvas) {
-            canvas.save();
+        /**
+         * Draws the background bar and the circle dots from the cached layer, rebuilding it if
+         * needed. The layer is twice as wide as the visible window and centered on it, so it
+         * is only redrawn after scrolling by half a window. A layer too large to cache draws
+         * them directly.
+         */
+        private void drawStaticLayer(Canvas canvas) {
+            if (mIndicatorBackgroundHeight <= 0 && mCircleDotRadius <= 0) {
+                return;
+            }
+            final int dotCenterY = getHeight() - (mIndicatorHeight - mIndicatorTop) / 2;
+            int top = mCircleDotRadius > 0 ? dotCenterY - mCircleDotRadius : Integer.MAX_VALUE;
+            int bottom = mCircleDotRadius > 0 ? dotCenterY + mCircleDotRadius : Integer.MIN_VALUE;
+            if (mIndicatorBackgroundHeight > 0) {
+                top = Math.min(top, mIndicatorBackgroundTop);
+                bottom = Math.max(bottom, mIndicatorBackgroundBottom);
+            }
+            final int viewportWidth = Math.min(getWidth(), TvTabLayout.this.getWidth());
+            final int width = Math.min(getWidth(), viewportWidth * 2);
+            final int height = bottom - top;
+            if (width <= 0 || height <= 0
+                    || (long) width * height * 4 > MAX_STATIC_LAYER_BYTES) {
+                releaseStaticLayer();
+                final int viewportLeft = TvTabLayout.this.getScrollX() - getLeft();
+                drawStaticContent(canvas, dotCenterY, viewportLeft,
+                        viewportLeft + TvTabLayout.this.getWidth());
+                return;
+            }
+
+            if (mStaticLayer == null || mStaticLayer.getWidth() != width
+                    || mStaticLayer.getHeight() != height) {
+                releaseStaticLayer();
+                mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+                mStaticLayerCanvas = new Canvas(mStaticLayer);
+                mStaticLayerDirty = true;
+            }
+            if (mStaticLayerDirty || mStaticLayerTop != top || !isViewportInStaticLayer()) {
+                final int viewportLeft = TvTabLayout.this.getScrollX() - getLeft();
+                final int left = Math.max(0, Math.min(getWidth() - width,
+                        viewportLeft - (width - viewportWidth) / 2));
+                mStaticLayer.eraseColor(Color.TRANSPARENT);
+                mStaticLayerCanvas.save();
+                mStaticLayerCanvas.translate(-left, -top);
+                drawStaticContent(mStaticLayerCanvas, dotCenterY, left, left + width);
+                mStaticLayerCanvas.restore();
+                mStaticLayerLeft = left;
+                mStaticLayerTop = top;
+                mStaticLayerDirty = false;
+            }
+            canvas.drawBitmap(mStaticLayer, mStaticLayerLeft, mStaticLayerTop, null);
+        }
+
+        private boolean isViewportInStaticLayer() {
+            final int viewportLeft = TvTabLayout.this.getScrollX() - getLeft();
+            final int viewportWidth = Math.min(getWidth(), TvTabLayout.this.getWidth());
+            return viewportLeft >= mStaticLayerLeft
+                    && viewportLeft + viewportWidth <= mStaticLayerLeft + mStaticLayer.getWidth();
+        }
 
-            final int childCount = getChildCount();
+        /**
+         * Redraws the strip once the visible window leaves the part the static layer holds.
+         * Scrolling alone does not redraw the strip.
+         */
+        void onViewportScrolled() {
+            if (mStaticLayer != null && !isViewportInStaticLayer()) {
+                invalidate();
+            }
+        }
 
+        /**
+         * @param left the left edge of the part of the strip being drawn
+         * @param right the right edge of the part of the strip being drawn
+         */
+        private void drawStaticContent(Canvas canvas, int dotCenterY, int left, int right) {
             // 画指示背影
             if(mIndicatorBackgroundHeight > 0) {
                 canvas.drawRect(mIndicatorBackgroundLeft, mIndicatorBackgroundTop, mIndicatorBackgroundRight, mIndicatorBackgroundBottom, mIndicatorBackgroundPaint);
@@ -2274,15 +5278,80 @@ public class TvTabLayout extends HorizontalScrollView {
 
             //画白色小圆点
             if(mCircleDotRadius > 0) {
-                for (int i = 0; i < childCount; i++) {
-                    View childView = getChildAt(i);
-                    if(null != childView) {
-                        canvas.drawCircle(childView.getWidth() / 2 + i * childView.getWidth(),
-                                getHeight() - (mIndicatorHeight - mIndicatorTop)/ 2,
-                                mCircleDotRadius, mCircleDotPaint);
-                    }
+                canvas.drawPath(getCircleDotPath(dotCenterY, left, right), mCircleDotPaint);
+            }
+        }
+
+        /**
+         * Returns the dots of the tabs between {@code left} and {@code right}, plus a margin,
+         * placed from their geometry so that tabs of any width, with or without a view, get
+         * theirs. Only rebuilt after layout, or once a different range of tabs is drawn.
+         */
+        private Path getCircleDotPath(int centerY, int left, int right) {
+            final int count = Math.min(mGeometry.size(), mTabs.size());
+            int first = 0;
+            int last = -1;
+            if (count > 0) {
+                final int leftPosition = findTabAt(left);
+                final int rightPosition = findTabAt(right);
+                first = Math.max(0, Math.min(leftPosition, rightPosition) - VIRTUALIZED_EXTRA_TABS);
+                last = Math.min(count - 1,
+                        Math.max(leftPosition, rightPosition) + VIRTUALIZED_EXTRA_TABS);
+            }
+            if (mCircleDotPathDirty || mCircleDotPathY != centerY
+                    || mCircleDotFirst != first || mCircleDotLast != last) {
+                mCircleDotPath.reset();
+                for (int i = first; i <= last; i++) {
+                    mCircleDotPath.addCircle(getTabLeft(i) + getTabWidth(i) / 2f, centerY,
+                            mCircleDotRadius, Path.Direction.CW);
                 }
+                mCircleDotPathY = centerY;
+                mCircleDotFirst = first;
+                mCircleDotLast = last;
+                mCircleDotPathDirty = false;
+            }
+            return mCircleDotPath;
+        }
+
+        /**
+         * Returns the position of the tab at {@code x} of the strip, clamped to the existing
+         * tabs.
+         */
+        private int findTabAt(int x) {
+            if (!usesTabGeometry()
+                    && ViewCompat.getLayoutDirection(this) == ViewCompat.LAYOUT_DIRECTION_RTL) {
+                // The tab views are laid out from the right edge
+                return findVirtualTabAt(getWidth() - getPaddingRight() - x);
+            }
+            return findVirtualTabAt(x - getPaddingLeft() - mTabContentOffset);
+        }
+
+        /**
+         * @return the bytes of the released layer
+         */
+        int releaseStaticLayer() {
+            if (mStaticLayer == null) {
+                return 0;
             }
+            final int bytes = mStaticLayer.getByteCount();
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+            mStaticLayerCanvas = null;
+            mStaticLayerDirty = true;
+            return bytes;
+        }
+
+        @Override
+        protected void onDetachedFromWindow() {
+            super.onDetachedFromWindow();
+            releaseStaticLayer();
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            canvas.save();
+
+            drawStaticLayer(canvas);
 
             // draw indicator below the current selection
             if (null != mIndicatorDrawable && mIndicatorLeft >= 0 && mIndicatorRight > mIndicatorLeft) {
@@ -2418,16 +5487,9 @@ public class TvTabLayout extends HorizontalScrollView {
      * A {@link TvTabLayout.OnTabSelectedListener} class which contains the necessary calls back
      * to the provided {@link ViewPager} so that the tab position is kept in sync.
      */
-    public static class ViewPagerOnTabSelectedListener implements TvTabLayout.OnTabSelectedListener {
+    public static class ViewPagerOnTabSelectedListener implements TvTabLayout.OnTabSelectedListener,
+            TvTabLayout.OnTabCommittedListener {
         private final ViewPager mViewPager;
-        private Handler mHandler = new Handler() {
-            @Override
-            public void handleMessage(Message msg) {
-                if(msg.what == 122) {
-                    mViewPager.setCurrentItem(msg.arg1);
-                }
-            }
-        };
 
         public ViewPagerOnTabSelectedListener(ViewPager viewPager) {
             mViewPager = viewPager;
@@ -2435,10 +5497,14 @@ public class TvTabLayout extends HorizontalScrollView {
 
         @Override
         public void onTabSelected(TvTabLayout.Tab tab) {
-            //延迟setCurrentItem，修复连续按键时indicator跳动的问题
-            mHandler.removeMessages(122);
-            Message msg = mHandler.obtainMessage(122, tab.mPosition, tab.mPosition);
-            mHandler.sendMessageDelayed(msg, 100);
+            // No-op, the page is switched once the selection is committed
+        }
+
+        @Override
+        public void onTabCommitted(TvTabLayout.Tab tab) {
+            // Only the tab the user settled on switches the page, so holding the D-pad does not
+            // make the pager and the indicator chase every tab passed on the way
+            mViewPager.setCurrentItem(tab.getPosition());
         }
 
         @Override
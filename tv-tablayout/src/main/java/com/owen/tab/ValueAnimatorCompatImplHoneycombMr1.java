@@ -33,6 +33,11 @@ class ValueAnimatorCompatImplHoneycombMr1 extends ValueAnimatorCompat.Impl {
 
     @Override
     public void setUpdateListener(final AnimatorUpdateListenerProxy updateListener) {
+        // Replace, rather than add to, any listener set before
+        mValueAnimator.removeAllUpdateListeners();
+        if (updateListener == null) {
+            return;
+        }
         mValueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
             @Override
             public void onAnimationUpdate(ValueAnimator valueAnimator) {
@@ -43,6 +48,10 @@ class ValueAnimatorCompatImplHoneycombMr1 extends ValueAnimatorCompat.Impl {
 
     @Override
     public void setListener(final AnimatorListenerProxy listener) {
+        mValueAnimator.removeAllListeners();
+        if (listener == null) {
+            return;
+        }
         mValueAnimator.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationStart(Animator animator) {
@@ -0,0 +1,201 @@
+package com.owen.tab;
+
+import android.view.animation.Interpolator;
+
+/**
+ * A ValueAnimator implementation which is driven by the display frames of a {@link FrameClock}.
+ * The animated fraction is worked out from the frame timestamps, so the animation is vsync
+ * aligned and only wakes up once per frame.
+ */
+class ValueAnimatorCompatImplJellyBean extends ValueAnimatorCompat.Impl
+        implements FrameClock.FrameCallback {
+
+    private static final int DEFAULT_DURATION = 200;
+    private static final long NANOS_PER_MS = 1000000L;
+
+    private final FrameClock mFrameClock;
+
+    private long mStartTimeNanos;
+    private boolean mIsRunning;
+
+    private final int[] mIntValues = new int[2];
+    private final float[] mFloatValues = new float[2];
+
+    private long mDuration = DEFAULT_DURATION;
+    private Interpolator mInterpolator;
+    private ValueAnimatorCompat.Impl.AnimatorListenerProxy mListener;
+    private ValueAnimatorCompat.Impl.AnimatorUpdateListenerProxy mUpdateListener;
+
+    private float mAnimatedFraction;
+    private long mStartDelay = 0;
+
+    ValueAnimatorCompatImplJellyBean() {
+        this(FrameClock.getDefault());
+    }
+
+    ValueAnimatorCompatImplJellyBean(FrameClock frameClock) {
+        mFrameClock = frameClock;
+    }
+
+    @Override
+    public void start() {
+        if (mIsRunning) {
+            // If we're already running, ignore
+            return;
+        }
+
+        if (mInterpolator == null) {
+            mInterpolator = AnimationUtils.ACCELERATE_DECELERATE_INTERPOLATOR;
+        }
+
+        // The start time is taken from the first frame we get
+        mStartTimeNanos = -1;
+        mIsRunning = true;
+
+        // Reset the animated fraction
+        mAnimatedFraction = 0f;
+
+        if (mListener != null) {
+            mListener.onAnimationStart();
+        }
+
+        mFrameClock.postFrameCallback(this);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    @Override
+    public void setInterpolator(Interpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    @Override
+    public void setListener(ValueAnimatorCompat.Impl.AnimatorListenerProxy listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public void setUpdateListener(ValueAnimatorCompat.Impl.AnimatorUpdateListenerProxy updateListener) {
+        mUpdateListener = updateListener;
+    }
+
+    @Override
+    public void setIntValues(int from, int to) {
+        mIntValues[0] = from;
+        mIntValues[1] = to;
+    }
+
+    @Override
+    public int getAnimatedIntValue() {
+        return AnimationUtils.lerp(mIntValues[0], mIntValues[1], getAnimatedFraction());
+    }
+
+    @Override
+    public void setFloatValues(float from, float to) {
+        mFloatValues[0] = from;
+        mFloatValues[1] = to;
+    }
+
+    @Override
+    public float getAnimatedFloatValue() {
+        return AnimationUtils.lerp(mFloatValues[0], mFloatValues[1], getAnimatedFraction());
+    }
+
+    @Override
+    public void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    @Override
+    public void cancel() {
+        mIsRunning = false;
+        mFrameClock.removeFrameCallback(this);
+
+        if (mListener != null) {
+            mListener.onAnimationCancel();
+            mListener.onAnimationEnd();
+        }
+    }
+
+    @Override
+    public float getAnimatedFraction() {
+        return mAnimatedFraction;
+    }
+
+    @Override
+    public void end() {
+        if (mIsRunning) {
+            mIsRunning = false;
+            mFrameClock.removeFrameCallback(this);
+
+            // Set our animated fraction to 1
+            mAnimatedFraction = 1f;
+
+            if (mUpdateListener != null) {
+                mUpdateListener.onAnimationUpdate();
+            }
+
+            if (mListener != null) {
+                mListener.onAnimationEnd();
+            }
+        }
+    }
+
+    @Override
+    public long getDuration() {
+        return mDuration;
+    }
+
+    @Override
+    void setStartDelay(long startDelay) {
+        this.mStartDelay = startDelay;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mIsRunning) {
+            return;
+        }
+
+        if (mStartTimeNanos < 0) {
+            mStartTimeNanos = frameTimeNanos + mStartDelay * NANOS_PER_MS;
+        }
+        final long elapsedNanos = frameTimeNanos - mStartTimeNanos;
+        if (elapsedNanos < 0) {
+            // Still within the start delay
+            mFrameClock.postFrameCallback(this);
+            return;
+        }
+
+        // Update the animated fraction
+        final float linearFraction = mDuration > 0
+                ? MathUtils.constrain(elapsedNanos / (float) (mDuration * NANOS_PER_MS), 0f, 1f)
+                : 1f;
+        mAnimatedFraction = mInterpolator != null
+                ? mInterpolator.getInterpolation(linearFraction)
+                : linearFraction;
+
+        // If we're running, dispatch to the listener
+        if (mUpdateListener != null) {
+            mUpdateListener.onAnimationUpdate();
+        }
+
+        if (!mIsRunning) {
+            // The update listener ended or canceled us
+            return;
+        }
+
+        if (linearFraction >= 1f) {
+            mIsRunning = false;
+
+            if (mListener != null) {
+                mListener.onAnimationEnd();
+            }
+        } else {
+            mFrameClock.postFrameCallback(this);
+        }
+    }
+}
@@ -11,14 +11,31 @@ class ViewUtils {
             = new ValueAnimatorCompat.Creator() {
         @Override
         public ValueAnimatorCompat createAnimator() {
-            return new ValueAnimatorCompat(Build.VERSION.SDK_INT >= 12
-                    ? new ValueAnimatorCompatImplHoneycombMr1()
-                    : new ValueAnimatorCompatImplEclairMr1());
+            final ValueAnimatorCompat.Impl impl;
+            if (Build.VERSION.SDK_INT >= 16) {
+                impl = new ValueAnimatorCompatImplJellyBean();
+            } else if (Build.VERSION.SDK_INT >= 12) {
+                impl = new ValueAnimatorCompatImplHoneycombMr1();
+            } else {
+                impl = new ValueAnimatorCompatImplEclairMr1();
+            }
+            return new ValueAnimatorCompat(impl);
         }
     };
 
     static ValueAnimatorCompat createAnimator() {
         return DEFAULT_ANIMATOR_CREATOR.createAnimator();
     }
+
+    /**
+     * Creates an animator which runs on {@code frameClock}, or a default one when frame clocks
+     * are not supported on this platform or {@code frameClock} is null.
+     */
+    static ValueAnimatorCompat createAnimator(FrameClock frameClock) {
+        if (frameClock != null && Build.VERSION.SDK_INT >= 16) {
+            return new ValueAnimatorCompat(new ValueAnimatorCompatImplJellyBean(frameClock));
+        }
+        return createAnimator();
+    }
     
 }
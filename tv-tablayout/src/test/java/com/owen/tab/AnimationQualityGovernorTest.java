@@ -0,0 +1,163 @@
+package com.owen.tab;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AnimationQualityGovernorTest {
+
+    private static final int MAX_LEVEL = 3;
+    private static final long FRAME_60HZ = 1000000000L / 60;
+    private static final long FRAME_30HZ = 1000000000L / 30;
+
+    private AnimationQualityGovernor mGovernor;
+    private long mFrameTimeNanos;
+    private int mLevelChanges;
+
+    @Before
+    public void setUp() {
+        mGovernor = new AnimationQualityGovernor(MAX_LEVEL);
+        mFrameTimeNanos = 1000000000L;
+        // The first frame only gives the time base
+        mGovernor.onFrame(mFrameTimeNanos);
+    }
+
+    @Test
+    public void framesOnTimeKeepTheFullQuality() {
+        runWindows(5, 0, FRAME_60HZ);
+        assertEquals(0, mGovernor.getLevel());
+        assertEquals(0, mLevelChanges);
+    }
+
+    @Test
+    public void lateWindowLowersTheQualityOneLevel() {
+        // A third of the frames missed a vsync
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE / 3, FRAME_60HZ);
+        assertEquals(1, mGovernor.getLevel());
+        assertEquals(1, mLevelChanges);
+
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE / 3, FRAME_60HZ);
+        assertEquals(2, mGovernor.getLevel());
+    }
+
+    @Test
+    public void fewLateFramesDoNotLowerTheQuality() {
+        runWindows(3, 1, FRAME_60HZ);
+        assertEquals(0, mGovernor.getLevel());
+    }
+
+    @Test
+    public void qualityStopsAtTheMaxLevel() {
+        runWindows(MAX_LEVEL + 2, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        assertEquals(MAX_LEVEL, mGovernor.getLevel());
+        assertEquals(MAX_LEVEL, mLevelChanges);
+    }
+
+    @Test
+    public void goodWindowsRaiseTheQualityAgain() {
+        runWindows(2, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        assertEquals(2, mGovernor.getLevel());
+        mLevelChanges = 0;
+
+        runWindows(AnimationQualityGovernor.RECOVERY_WINDOWS - 1, 0, FRAME_60HZ);
+        assertEquals(2, mGovernor.getLevel());
+        runWindows(1, 0, FRAME_60HZ);
+        assertEquals(1, mGovernor.getLevel());
+
+        runWindows(AnimationQualityGovernor.RECOVERY_WINDOWS, 0, FRAME_60HZ);
+        assertEquals(0, mGovernor.getLevel());
+        assertEquals(2, mLevelChanges);
+    }
+
+    @Test
+    public void middlingWindowInterruptsTheRecovery() {
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        runWindows(AnimationQualityGovernor.RECOVERY_WINDOWS - 1, 0, FRAME_60HZ);
+        // Neither good nor bad enough to change the level
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE / 10, FRAME_60HZ);
+        runWindows(AnimationQualityGovernor.RECOVERY_WINDOWS - 1, 0, FRAME_60HZ);
+        assertEquals(1, mGovernor.getLevel());
+    }
+
+    @Test
+    public void skippedAnimationsProbeTheNextLevelUp() {
+        runWindows(MAX_LEVEL, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        assertEquals(MAX_LEVEL, mGovernor.getLevel());
+
+        for (int i = 0; i < AnimationQualityGovernor.PROBE_SKIPPED_ANIMATIONS - 1; i++) {
+            assertFalse(mGovernor.onAnimationSkipped());
+        }
+        assertTrue(mGovernor.onAnimationSkipped());
+        assertEquals(MAX_LEVEL - 1, mGovernor.getLevel());
+
+        // Animations run again at that level, so they are no longer counted as skipped
+        for (int i = 0; i < AnimationQualityGovernor.PROBE_SKIPPED_ANIMATIONS; i++) {
+            assertFalse(mGovernor.onAnimationSkipped());
+        }
+        assertEquals(MAX_LEVEL - 1, mGovernor.getLevel());
+    }
+
+    @Test
+    public void failedProbeFallsBackToTheMaxLevel() {
+        runWindows(MAX_LEVEL, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        for (int i = 0; i < AnimationQualityGovernor.PROBE_SKIPPED_ANIMATIONS; i++) {
+            mGovernor.onAnimationSkipped();
+        }
+        assertEquals(MAX_LEVEL - 1, mGovernor.getLevel());
+
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        assertEquals(MAX_LEVEL, mGovernor.getLevel());
+    }
+
+    @Test
+    public void framesAreJudgedAgainstTheDisplayRefreshRate() {
+        // Every frame of a 30Hz display would be late at 60Hz
+        mGovernor.setFrameIntervalNanos(FRAME_30HZ);
+        runWindows(5, 0, FRAME_30HZ);
+        assertEquals(0, mGovernor.getLevel());
+
+        runWindows(1, AnimationQualityGovernor.WINDOW_SIZE / 3, FRAME_30HZ);
+        assertEquals(1, mGovernor.getLevel());
+    }
+
+    @Test
+    public void pausesBetweenAnimationsAreNotLateFrames() {
+        for (int i = 0; i < AnimationQualityGovernor.WINDOW_SIZE * 2; i++) {
+            // Every animation lasts a single frame, then nothing runs for a second
+            step(FRAME_60HZ);
+            mGovernor.onIdle();
+            mFrameTimeNanos += 1000000000L;
+            mGovernor.onFrame(mFrameTimeNanos);
+        }
+        assertEquals(0, mGovernor.getLevel());
+    }
+
+    @Test
+    public void resetGoesBackToTheFullQuality() {
+        runWindows(2, AnimationQualityGovernor.WINDOW_SIZE, FRAME_60HZ);
+        mGovernor.reset();
+        assertEquals(0, mGovernor.getLevel());
+    }
+
+    /**
+     * Runs {@code windows} windows of frames, the first {@code lateFrames} of each missing a
+     * vsync.
+     */
+    private void runWindows(int windows, int lateFrames, long frameIntervalNanos) {
+        for (int window = 0; window < windows; window++) {
+            for (int i = 0; i < AnimationQualityGovernor.WINDOW_SIZE; i++) {
+                step(i < lateFrames ? frameIntervalNanos * 2 : frameIntervalNanos);
+            }
+        }
+    }
+
+    private void step(long durationNanos) {
+        mFrameTimeNanos += durationNanos;
+        if (mGovernor.onFrame(mFrameTimeNanos)) {
+            mLevelChanges++;
+        }
+    }
+}
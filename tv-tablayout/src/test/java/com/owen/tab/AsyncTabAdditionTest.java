@@ -0,0 +1,138 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Adds the same labels with {@link TvTabLayout#addTabsAsync} and {@link TvTabLayout#addTabs},
+ * and checks that the labels measured up front are the ones the measure pass looks up.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class AsyncTabAdditionTest {
+
+    private static final String[] LABELS = {"Home", "Movies", "TV shows", "Kids", "Sports",
+            "A label long enough to need more room than the others"};
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Executor REJECTING_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            throw new RejectedExecutionException();
+        }
+    };
+
+    @Test
+    public void rejectedAdditionsAreMeasuredInPlace() {
+        final TextMeasureCache cache = new TextMeasureCache(LABELS.length * 4);
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final TvTabLayout layout = createLayout(activity, false, cache);
+        final boolean[] added = new boolean[2];
+
+        layout.addTabsAsync(createTabs(layout), REJECTING_EXECUTOR, new Runnable() {
+            @Override
+            public void run() {
+                added[0] = true;
+            }
+        });
+        assertEquals(LABELS.length, cache.size());
+        // Queued behind the rejected one, which must not hold it up
+        layout.addTabsAsync(createTabs(layout), DIRECT_EXECUTOR, new Runnable() {
+            @Override
+            public void run() {
+                added[1] = true;
+            }
+        });
+        attach(activity, layout);
+
+        assertTrue(added[0]);
+        assertTrue(added[1]);
+        assertEquals(2 * LABELS.length, layout.getTabCount());
+        assertEquals(LABELS[0], layout.getTabAt(LABELS.length).getText());
+    }
+
+    @Test
+    public void asyncTabsMeasureLikeSyncTabs() {
+        assertSameAsSync(false);
+    }
+
+    @Test
+    public void asyncFlatTabsMeasureLikeSyncTabs() {
+        assertSameAsSync(true);
+    }
+
+    private static void assertSameAsSync(boolean flat) {
+        final Activity syncActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        final TvTabLayout sync = createLayout(syncActivity, flat,
+                new TextMeasureCache(LABELS.length * 4));
+        sync.addTabs(createTabs(sync));
+        attach(syncActivity, sync);
+
+        final TextMeasureCache cache = new TextMeasureCache(LABELS.length * 4);
+        final Activity asyncActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        final TvTabLayout async = createLayout(asyncActivity, flat, cache);
+        async.addTabsAsync(createTabs(async), DIRECT_EXECUTOR, null);
+        final int measured = cache.size();
+        assertEquals(LABELS.length, measured);
+        assertEquals(0, async.getTabCount());
+        attach(asyncActivity, async);
+
+        // Every label was a hit, the measure pass looked them up with the same keys
+        assertEquals(LABELS.length, async.getTabCount());
+        assertEquals(measured, cache.size());
+
+        final ViewGroup syncStrip = (ViewGroup) sync.getChildAt(0);
+        final ViewGroup asyncStrip = (ViewGroup) async.getChildAt(0);
+        assertEquals(syncStrip.getMeasuredWidth(), asyncStrip.getMeasuredWidth());
+        assertEquals(syncStrip.getMeasuredHeight(), asyncStrip.getMeasuredHeight());
+        assertEquals(syncStrip.getChildCount(), asyncStrip.getChildCount());
+        for (int i = 0; i < syncStrip.getChildCount(); i++) {
+            assertEquals(syncStrip.getChildAt(i).getMeasuredWidth(),
+                    asyncStrip.getChildAt(i).getMeasuredWidth());
+        }
+    }
+
+    private static TvTabLayout createLayout(Activity activity, boolean flat,
+            TextMeasureCache cache) {
+        final TvTabLayout layout = new TvTabLayout(activity);
+        layout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        layout.setTabFlatRenderEnabled(flat);
+        layout.setTextMeasureCache(cache);
+        return layout;
+    }
+
+    private static List<TvTabLayout.Tab> createTabs(TvTabLayout layout) {
+        final List<TvTabLayout.Tab> tabs = new ArrayList<>(LABELS.length);
+        for (String label : LABELS) {
+            tabs.add(layout.newTab().setText(label));
+        }
+        return tabs;
+    }
+
+    private static void attach(Activity activity, TvTabLayout layout) {
+        activity.setContentView(layout);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
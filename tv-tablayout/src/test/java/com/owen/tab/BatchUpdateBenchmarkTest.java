@@ -0,0 +1,125 @@
+package com.owen.tab;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Adds and removes 10 to 10,000 tabs, through the batch API and one tab at a time, and compares
+ * the time spent per tab. The batch path renumbers and lays out once per call, so its time per
+ * tab stays flat as the number of tabs grows, while removing tabs one at a time renumbers the
+ * remaining tabs on every removal.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BatchUpdateBenchmarkTest {
+
+    private static final int[] TAB_COUNTS = {10, 100, 1000, 10000};
+    private static final int RUNS = 3;
+    // A pass over all the tabs per tab would make a tab 10 times slower from 1,000 to 10,000
+    private static final double MAX_PER_TAB_GROWTH = 4;
+
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+
+    @Test
+    public void batchUpdatesScaleLinearly() {
+        final double[][] batchNanosPerTab = new double[TAB_COUNTS.length][2];
+        final double[][] singleNanosPerTab = new double[TAB_COUNTS.length][2];
+        final long[] nanos = new long[2];
+        // Warm up the class loading and compilation of both paths
+        measureBatch(TAB_COUNTS[2], nanos);
+        measureIndividually(TAB_COUNTS[2], nanos);
+
+        for (int i = 0; i < TAB_COUNTS.length; i++) {
+            final int count = TAB_COUNTS[i];
+            long bestAdd = Long.MAX_VALUE;
+            long bestRemove = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                measureBatch(count, nanos);
+                bestAdd = Math.min(bestAdd, nanos[ADD]);
+                bestRemove = Math.min(bestRemove, nanos[REMOVE]);
+            }
+            batchNanosPerTab[i][ADD] = (double) bestAdd / count;
+            batchNanosPerTab[i][REMOVE] = (double) bestRemove / count;
+
+            measureIndividually(count, nanos);
+            singleNanosPerTab[i][ADD] = (double) nanos[ADD] / count;
+            singleNanosPerTab[i][REMOVE] = (double) nanos[REMOVE] / count;
+        }
+
+        final int last = TAB_COUNTS.length - 1;
+        assertLinear("addTabs", batchNanosPerTab[last - 1][ADD], batchNanosPerTab[last][ADD]);
+        assertLinear("removeTabs",
+                batchNanosPerTab[last - 1][REMOVE], batchNanosPerTab[last][REMOVE]);
+        assertFaster("addTabs", batchNanosPerTab[last][ADD], "addTab",
+                singleNanosPerTab[last][ADD]);
+        assertFaster("removeTabs", batchNanosPerTab[last][REMOVE], "removeTabAt",
+                singleNanosPerTab[last][REMOVE]);
+    }
+
+    private static void measureBatch(int count, long[] nanos) {
+        final TvTabLayout layout = new TvTabLayout(RuntimeEnvironment.application);
+        final List<TvTabLayout.Tab> tabs = createTabs(layout, count);
+
+        long start = System.nanoTime();
+        layout.addTabs(tabs);
+        nanos[ADD] = System.nanoTime() - start;
+        assertEquals(count, layout.getTabCount());
+        assertEquals(count - 1, layout.getTabAt(count - 1).getPosition());
+
+        start = System.nanoTime();
+        layout.removeTabs(0, count);
+        nanos[REMOVE] = System.nanoTime() - start;
+        assertEquals(0, layout.getTabCount());
+    }
+
+    private static void measureIndividually(int count, long[] nanos) {
+        final TvTabLayout layout = new TvTabLayout(RuntimeEnvironment.application);
+        final List<TvTabLayout.Tab> tabs = createTabs(layout, count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            layout.addTab(tabs.get(i));
+        }
+        nanos[ADD] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            layout.removeTabAt(0);
+        }
+        nanos[REMOVE] = System.nanoTime() - start;
+        assertEquals(0, layout.getTabCount());
+    }
+
+    private static List<TvTabLayout.Tab> createTabs(TvTabLayout layout, int count) {
+        final List<TvTabLayout.Tab> tabs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tabs.add(layout.newTab().setText("Tab " + i));
+        }
+        return tabs;
+    }
+
+    private static void assertLinear(String operation, double smallerNanosPerTab,
+            double largerNanosPerTab) {
+        assertTrue(String.format(Locale.US, "%s took %.0fns per tab at %d tabs, %.0fns at %d",
+                operation, largerNanosPerTab, TAB_COUNTS[TAB_COUNTS.length - 1],
+                smallerNanosPerTab, TAB_COUNTS[TAB_COUNTS.length - 2]),
+                largerNanosPerTab <= smallerNanosPerTab * MAX_PER_TAB_GROWTH);
+    }
+
+    private static void assertFaster(String batchOperation, double batchNanosPerTab,
+            String singleOperation, double singleNanosPerTab) {
+        assertTrue(String.format(Locale.US, "%s took %.0fns per tab at %d tabs, %s %.0fns",
+                batchOperation, batchNanosPerTab, TAB_COUNTS[TAB_COUNTS.length - 1],
+                singleOperation, singleNanosPerTab),
+                batchNanosPerTab <= singleNanosPerTab);
+    }
+}
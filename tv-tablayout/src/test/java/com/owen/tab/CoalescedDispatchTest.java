@@ -0,0 +1,108 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class CoalescedDispatchTest {
+
+    private TvTabLayout mLayout;
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(activity);
+        for (int i = 0; i < 6; i++) {
+            mLayout.addTab(mLayout.newTab().setText("Tab " + i));
+        }
+        activity.setContentView(mLayout);
+        mLayout.addOnTabSelectedListener(new TvTabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TvTabLayout.Tab tab) {
+                mEvents.add("selected " + tab.getText());
+            }
+
+            @Override
+            public void onTabUnselected(TvTabLayout.Tab tab) {
+                mEvents.add("unselected " + tab.getText());
+            }
+
+            @Override
+            public void onTabReselected(TvTabLayout.Tab tab) {
+                mEvents.add("reselected " + tab.getText());
+            }
+        }, TvTabLayout.DISPATCH_COALESCED);
+        // Lets the first tab be selected and reported
+        idle();
+        mEvents.clear();
+    }
+
+    @Test
+    public void reportsOnlyTheLastSelectionOfAFrame() {
+        mLayout.getTabAt(1).select();
+        mLayout.getTabAt(2).select();
+        mLayout.getTabAt(3).select();
+        idle();
+
+        assertEquals(Arrays.asList("unselected Tab 0", "selected Tab 3"), mEvents);
+    }
+
+    @Test
+    public void removedTabIsNotReportedAsUnselected() {
+        final TvTabLayout.Tab removed = mLayout.getTabAt(3);
+        removed.select();
+        idle();
+        mEvents.clear();
+
+        mLayout.removeTabAt(3);
+        // Takes the removed tab out of the pool
+        final TvTabLayout.Tab recycled = mLayout.newTab().setText("New tab");
+        assertSame(removed, recycled);
+        idle();
+
+        assertEquals(Arrays.asList("selected Tab 2"), mEvents);
+    }
+
+    @Test
+    public void recycledTabSelectedInTheSameFrameIsReportedAsSelected() {
+        final TvTabLayout.Tab removed = mLayout.getTabAt(3);
+        removed.select();
+        idle();
+        mEvents.clear();
+
+        mLayout.removeTabAt(3);
+        final TvTabLayout.Tab recycled = mLayout.newTab().setText("New tab");
+        assertSame(removed, recycled);
+        mLayout.addTab(recycled, 3);
+        recycled.select();
+        idle();
+
+        // The same object, but not the tab that was selected before
+        assertEquals(Arrays.asList("selected New tab"), mEvents);
+    }
+
+    /**
+     * Runs the posted selections and the next frames.
+     */
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idleFor(100, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,94 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.text.TextPaint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Lays out a large adapter in flat render mode and checks which tabs get bound and measured.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class FlatRenderMeasureTest {
+
+    private static final int TAB_COUNT = 1000;
+
+    private TvTabLayout mLayout;
+    private final Set<Integer> mBoundPositions = new HashSet<>();
+    private int mMeasures;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(activity);
+        mLayout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        mLayout.setTabFlatRenderEnabled(true);
+        mLayout.setTextMeasureCache(new TextMeasureCache(TAB_COUNT) {
+            @Override
+            public Metrics measure(CharSequence text, TextPaint paint, int maxWidth) {
+                mMeasures++;
+                return super.measure(text, paint, maxWidth);
+            }
+        });
+        mLayout.setTabAdapter(new TvTabLayout.TabAdapter() {
+            @Override
+            public int getItemCount() {
+                return TAB_COUNT;
+            }
+
+            @Override
+            public void onBindTab(@NonNull TvTabLayout.Tab tab, int position) {
+                mBoundPositions.add(position);
+                tab.setText("Tab " + position);
+            }
+        });
+        activity.setContentView(mLayout);
+        idle();
+    }
+
+    @Test
+    public void onlyTabsNearTheWindowAreBound() {
+        assertTrue(mBoundPositions.contains(0));
+        assertTrue("Bound " + mBoundPositions.size() + " tabs",
+                mBoundPositions.size() < TAB_COUNT / 10);
+    }
+
+    @Test
+    public void measuredTabsAreNotMeasuredAgain() {
+        mBoundPositions.clear();
+        mMeasures = 0;
+
+        mLayout.requestLayout();
+        idle();
+        assertEquals(0, mMeasures);
+        assertEquals(0, mBoundPositions.size());
+    }
+
+    @Test
+    public void changedLabelIsMeasuredAgain() {
+        mMeasures = 0;
+
+        mLayout.getTabAt(1).setText("A longer label");
+        idle();
+        assertEquals(1, mMeasures);
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
@@ -0,0 +1,88 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Selects tabs of a laid out layout while the indicator is still moving, and checks that every
+ * selection retargets the same animator instead of setting up a new one.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class IndicatorAnimatorAllocationTest {
+
+    private static final int TAB_COUNT = 10;
+    private static final int SELECTIONS = 100;
+
+    private TvTabLayout mLayout;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(activity);
+        mLayout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        for (int i = 0; i < TAB_COUNT; i++) {
+            mLayout.addTab(mLayout.newTab().setText("Tab " + i));
+        }
+        activity.setContentView(mLayout);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    @Test
+    public void selectionsReuseTheIndicatorAnimator() throws Exception {
+        mLayout.getTabAt(5).select();
+        final ValueAnimatorCompat animator = getIndicatorAnimator();
+        assertNotNull(animator);
+        assertTrue(animator.isRunning());
+        final Object impl = get(animator, ValueAnimatorCompat.class, "mImpl");
+        final Object interpolator = getImplField(impl, "mInterpolator");
+        final Object listener = getImplField(impl, "mListener");
+        final Object updateListener = getImplField(impl, "mUpdateListener");
+
+        for (int i = 0; i < SELECTIONS; i++) {
+            // Alternate between tabs apart, each one retargeting the running animation
+            mLayout.getTabAt(i % 2 == 0 ? 2 : 5).select();
+            assertTrue(animator.isRunning());
+
+            assertSame(animator, getIndicatorAnimator());
+            assertSame(impl, get(animator, ValueAnimatorCompat.class, "mImpl"));
+            assertSame(interpolator, getImplField(impl, "mInterpolator"));
+            assertSame(listener, getImplField(impl, "mListener"));
+            assertSame(updateListener, getImplField(impl, "mUpdateListener"));
+        }
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertFalse(animator.isRunning());
+        assertSame(animator, getIndicatorAnimator());
+    }
+
+    private ValueAnimatorCompat getIndicatorAnimator() throws Exception {
+        return (ValueAnimatorCompat) get(mLayout.mTabStrip, TvTabLayout.SlidingTabStrip.class,
+                "mIndicatorAnimator");
+    }
+
+    private static Object getImplField(Object impl, String name) throws Exception {
+        return get(impl, impl.getClass(), name);
+    }
+
+    private static Object get(Object target, Class<?> type, String name) throws Exception {
+        final Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,78 @@
+package com.owen.tab;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link FrameClock} whose frames are stepped by the test, so animations can be driven with
+ * exact frame times.
+ */
+class ManualFrameClock extends FrameClock {
+
+    static final long FRAME_INTERVAL_NANOS = 1000000000L / 60;
+    static final long NANOS_PER_MS = 1000000L;
+
+    private ArrayList<FrameCallback> mCallbacks = new ArrayList<>();
+    private ArrayList<FrameCallback> mDispatchingCallbacks = new ArrayList<>();
+    private long mFrameTimeNanos = 1000000000L;
+
+    @Override
+    void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    @Override
+    void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    boolean hasPendingCallbacks() {
+        return !mCallbacks.isEmpty();
+    }
+
+    long getFrameTimeNanos() {
+        return mFrameTimeNanos;
+    }
+
+    /**
+     * Runs the next frame, one 60Hz vsync after the previous one.
+     */
+    void step() {
+        stepNanos(FRAME_INTERVAL_NANOS);
+    }
+
+    void stepMillis(long millis) {
+        stepNanos(millis * NANOS_PER_MS);
+    }
+
+    void stepNanos(long nanos) {
+        doFrame(mFrameTimeNanos + nanos);
+    }
+
+    /**
+     * Runs 60Hz frames until nothing is posted any more.
+     *
+     * @return the number of frames run
+     */
+    int runUntilIdle(int maxFrames) {
+        int frames = 0;
+        while (hasPendingCallbacks() && frames < maxFrames) {
+            step();
+            frames++;
+        }
+        return frames;
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        mFrameTimeNanos = frameTimeNanos;
+        // Like the Choreographer, callbacks posted while dispatching run on the next frame
+        final ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mDispatchingCallbacks;
+        mDispatchingCallbacks = callbacks;
+        for (int i = 0, z = callbacks.size(); i < z; i++) {
+            callbacks.get(i).doFrame(frameTimeNanos);
+        }
+        callbacks.clear();
+    }
+}
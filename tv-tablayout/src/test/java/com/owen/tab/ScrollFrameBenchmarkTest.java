@@ -0,0 +1,96 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Scrolls laid out layouts of 10 to 10,000 tab views the way a {@code ViewPager} drives them,
+ * one {@link TvTabLayout#setScrollPosition(int, float, boolean)} per frame, and compares the
+ * time spent per frame. A frame only updates the tabs which lost and got the highlight and the
+ * indicator, so its cost does not depend on the number of tabs.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class ScrollFrameBenchmarkTest {
+
+    private static final int[] TAB_COUNTS = {10, 100, 1000, 10000};
+    // Ten frames per page, across the first eight pages and back
+    private static final int FRAMES_PER_PAGE = 10;
+    private static final int PAGES = 8;
+    private static final int RUNS = 5;
+    // A pass over all the tab views per frame would make a frame 100 times slower from 100
+    // tabs to 10,000
+    private static final double MAX_PER_FRAME_GROWTH = 4;
+
+    @Test
+    public void frameCostDoesNotGrowWithTheTabCount() {
+        final double[] nanosPerFrame = new double[TAB_COUNTS.length];
+        // Warm up the class loading and compilation of the frame path
+        measure(createLayout(TAB_COUNTS[1]));
+
+        for (int i = 0; i < TAB_COUNTS.length; i++) {
+            final TvTabLayout layout = createLayout(TAB_COUNTS[i]);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                best = Math.min(best, measure(layout));
+            }
+            nanosPerFrame[i] = (double) best / (FRAMES_PER_PAGE * PAGES * 2);
+        }
+
+        final double smallest = nanosPerFrame[1];
+        final double largest = nanosPerFrame[TAB_COUNTS.length - 1];
+        assertTrue(String.format(Locale.US, "A frame took %.0fns with %d tabs, %.0fns with %d",
+                largest, TAB_COUNTS[TAB_COUNTS.length - 1], smallest, TAB_COUNTS[1]),
+                largest <= smallest * MAX_PER_FRAME_GROWTH);
+    }
+
+    /**
+     * @return the nanoseconds spent scrolling across the pages and back
+     */
+    private static long measure(TvTabLayout layout) {
+        final long start = System.nanoTime();
+        for (int frame = 0; frame <= FRAMES_PER_PAGE * PAGES; frame++) {
+            scrollTo(layout, frame);
+        }
+        for (int frame = FRAMES_PER_PAGE * PAGES - 1; frame > 0; frame--) {
+            scrollTo(layout, frame);
+        }
+        final long nanos = System.nanoTime() - start;
+        // Scrolling only moves the highlight, the selection stays
+        assertEquals(0, layout.getSelectedTabPosition());
+        return nanos;
+    }
+
+    private static void scrollTo(TvTabLayout layout, int frame) {
+        layout.setScrollPosition(frame / FRAMES_PER_PAGE,
+                (float) (frame % FRAMES_PER_PAGE) / FRAMES_PER_PAGE, true);
+    }
+
+    private static TvTabLayout createLayout(int count) {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final TvTabLayout layout = new TvTabLayout(activity);
+        layout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        final List<TvTabLayout.Tab> tabs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tabs.add(layout.newTab().setText("Tab " + i));
+        }
+        layout.addTabs(tabs);
+        activity.setContentView(layout);
+        shadowOf(Looper.getMainLooper()).idle();
+        return layout;
+    }
+}
@@ -0,0 +1,148 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.KeyEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SelectionCommitTest {
+
+    private static final int TAB_COUNT = 10;
+    // The paused looper advances the clock by a frame for every frame an animation draws, so
+    // the delays have to outlast the scroll and indicator animations a press starts
+    private static final int COMMIT_DELAY = 5000;
+
+    private TvTabLayout mLayout;
+    private final List<Integer> mCommitted = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(activity);
+        for (int i = 0; i < TAB_COUNT; i++) {
+            mLayout.addTab(mLayout.newTab().setText("Tab " + i));
+        }
+        activity.setContentView(mLayout);
+        // Lets the commit of the first tab through
+        shadowOf(Looper.getMainLooper()).idle();
+
+        mLayout.addOnTabCommittedListener(new TvTabLayout.OnTabCommittedListener() {
+            @Override
+            public void onTabCommitted(TvTabLayout.Tab tab) {
+                mCommitted.add(tab.getPosition());
+            }
+        });
+    }
+
+    @Test
+    public void keySelectionsAreDebounced() {
+        mLayout.setSelectionCommitPolicy(TvTabLayout.COMMIT_DEBOUNCE);
+        mLayout.setSelectionCommitDelay(COMMIT_DELAY);
+
+        for (int i = 0; i < 3; i++) {
+            pressRight();
+            idleFor(COMMIT_DELAY / 2);
+        }
+        assertEquals(3, mLayout.getSelectedTabPosition());
+        assertEquals(Collections.<Integer>emptyList(), mCommitted);
+
+        idleFor(COMMIT_DELAY);
+        assertEquals(Arrays.asList(3), mCommitted);
+    }
+
+    @Test
+    public void heldKeysDoNotShortenTheAdaptiveDelay() {
+        mLayout.setSelectionCommitPolicy(TvTabLayout.COMMIT_ADAPTIVE);
+        mLayout.setAdaptiveCommitDelayRange(COMMIT_DELAY, 4 * COMMIT_DELAY);
+
+        // Deliberate presses, which ask for 1.5 times their interval
+        final long interval = 2 * COMMIT_DELAY;
+        long time = 0;
+        for (int i = 0; i < 3; i++) {
+            time += interval;
+            pressRight(time);
+        }
+        // Then a held key, auto-repeating far faster than the shortest delay
+        final long downTime = time + interval;
+        for (int repeat = 0; repeat < 5; repeat++) {
+            time = downTime + repeat * 50;
+            mLayout.dispatchKeyEvent(new KeyEvent(downTime, time, KeyEvent.ACTION_DOWN,
+                    KeyEvent.KEYCODE_DPAD_RIGHT, repeat));
+        }
+        mLayout.dispatchKeyEvent(new KeyEvent(downTime, time, KeyEvent.ACTION_UP,
+                KeyEvent.KEYCODE_DPAD_RIGHT, 0));
+        assertEquals(8, mLayout.getSelectedTabPosition());
+
+        // Past the shortest delay, which the repeats would have brought it down to
+        idleFor(interval);
+        assertEquals(Collections.<Integer>emptyList(), mCommitted);
+
+        idleFor(interval);
+        assertEquals(Arrays.asList(8), mCommitted);
+    }
+
+    @Test
+    public void otherSelectionsAreCommittedWithoutDelay() {
+        mLayout.setSelectionCommitPolicy(TvTabLayout.COMMIT_DEBOUNCE);
+
+        mLayout.getTabAt(5).select();
+        // Posted rather than run from within the selection
+        assertEquals(Collections.<Integer>emptyList(), mCommitted);
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Arrays.asList(5), mCommitted);
+    }
+
+    @Test
+    public void immediateCommitsArePosted() {
+        mLayout.setSelectionCommitPolicy(TvTabLayout.COMMIT_IMMEDIATE);
+
+        pressRight();
+        assertEquals(Collections.<Integer>emptyList(), mCommitted);
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Arrays.asList(1), mCommitted);
+    }
+
+    @Test
+    public void onlyTheLastOfSeveralSelectionsIsCommitted() {
+        mLayout.getTabAt(2).select();
+        mLayout.getTabAt(4).select();
+
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(Arrays.asList(4), mCommitted);
+    }
+
+    private void pressRight() {
+        mLayout.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DPAD_RIGHT));
+        mLayout.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_DPAD_RIGHT));
+    }
+
+    private void pressRight(long time) {
+        mLayout.dispatchKeyEvent(new KeyEvent(time, time, KeyEvent.ACTION_DOWN,
+                KeyEvent.KEYCODE_DPAD_RIGHT, 0));
+        mLayout.dispatchKeyEvent(new KeyEvent(time, time, KeyEvent.ACTION_UP,
+                KeyEvent.KEYCODE_DPAD_RIGHT, 0));
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+    }
+}
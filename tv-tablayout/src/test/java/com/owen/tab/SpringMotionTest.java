@@ -0,0 +1,158 @@
+package com.owen.tab;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpringMotionTest {
+
+    private static final long ANIMATION_DURATION_MS = 300;
+    private static final int MAX_FRAMES = 600;
+
+    private ManualFrameClock mClock;
+    private SpringMotion mSpring;
+    private int mUpdates;
+    private int mRests;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mSpring = new SpringMotion(mClock, new SpringMotion.Listener() {
+            @Override
+            public void onSpringUpdate(SpringMotion spring) {
+                mUpdates++;
+            }
+
+            @Override
+            public void onSpringAtRest(SpringMotion spring) {
+                mRests++;
+            }
+        });
+    }
+
+    @Test
+    public void moveOfATabRestsWithinTheAnimationDuration() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(200f);
+        // The first frame only gives the time base
+        mClock.step();
+
+        final int frames = mClock.runUntilIdle(MAX_FRAMES);
+        assertTrue("Took " + frames + " frames",
+                frames * ManualFrameClock.FRAME_INTERVAL_NANOS
+                        <= ANIMATION_DURATION_MS * ManualFrameClock.NANOS_PER_MS);
+        assertFalse(mSpring.isRunning());
+        assertEquals(200f, mSpring.getValue(), 0f);
+        assertEquals(1, mRests);
+    }
+
+    @Test
+    public void moveAcrossTheScreenRestsWithin400ms() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(1920f);
+        mClock.step();
+
+        final int frames = mClock.runUntilIdle(MAX_FRAMES);
+        assertTrue("Took " + frames + " frames",
+                frames * ManualFrameClock.FRAME_INTERVAL_NANOS
+                        <= 400 * ManualFrameClock.NANOS_PER_MS);
+    }
+
+    @Test
+    public void doesNotOvershoot() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(1000f);
+        float previous = 0f;
+        while (mSpring.isRunning()) {
+            mClock.step();
+            assertTrue(mSpring.getValue() >= previous);
+            assertTrue(mSpring.getValue() <= 1000f);
+            previous = mSpring.getValue();
+        }
+    }
+
+    @Test
+    public void retargetingKeepsMoving() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(200f);
+        mClock.step();
+        for (int i = 0; i < 5; i++) {
+            mClock.step();
+        }
+        final float before = mSpring.getValue();
+        mClock.step();
+        final float lastStep = mSpring.getValue() - before;
+        assertTrue(lastStep > 0f);
+
+        // Heading further on keeps the speed instead of starting from rest
+        mSpring.animateTo(400f);
+        final float retargeted = mSpring.getValue();
+        mClock.step();
+        assertTrue(mSpring.getValue() - retargeted >= lastStep);
+
+        mClock.runUntilIdle(MAX_FRAMES);
+        assertEquals(400f, mSpring.getValue(), 0f);
+        assertEquals(1, mRests);
+    }
+
+    @Test
+    public void longFramesAreClamped() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(1000f);
+        mClock.step();
+
+        // A stall of a second moves the spring as far as a 1/15s frame would
+        mClock.stepMillis(1000);
+        final float afterStall = mSpring.getValue();
+        assertTrue(afterStall > 0f && afterStall < 1000f);
+        assertTrue(mSpring.isRunning());
+    }
+
+    @Test
+    public void cancelStopsWhereItIs() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(200f);
+        mClock.step();
+        mClock.step();
+        mClock.step();
+        final float value = mSpring.getValue();
+        final int updates = mUpdates;
+
+        mSpring.cancel();
+        assertFalse(mSpring.isRunning());
+        assertFalse(mClock.hasPendingCallbacks());
+        mClock.step();
+        assertEquals(value, mSpring.getValue(), 0f);
+        assertEquals(updates, mUpdates);
+        assertEquals(0, mRests);
+    }
+
+    @Test
+    public void animatingToTheCurrentValueDoesNothing() {
+        mSpring.setValue(50f);
+        mSpring.animateTo(50f);
+        assertFalse(mSpring.isRunning());
+        assertFalse(mClock.hasPendingCallbacks());
+    }
+
+    @Test
+    public void setValueJumpsAndStops() {
+        mSpring.setValue(0f);
+        mSpring.animateTo(200f);
+        mClock.step();
+        mClock.step();
+
+        mSpring.setValue(80f);
+        assertFalse(mSpring.isRunning());
+        assertEquals(80f, mSpring.getValue(), 0f);
+
+        // Starts again from rest
+        mSpring.animateTo(100f);
+        mClock.step();
+        mClock.step();
+        assertTrue(mSpring.getValue() > 80f && mSpring.getValue() < 90f);
+    }
+}
@@ -0,0 +1,106 @@
+package com.owen.tab;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TabGeometryIndexTest {
+
+    private static final int FALLBACK_WIDTH = 72;
+
+    private TabGeometryIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mIndex = new TabGeometryIndex();
+        mIndex.setFallbackWidth(FALLBACK_WIDTH);
+        for (int i = 0; i < 5; i++) {
+            mIndex.insert(i);
+        }
+    }
+
+    @Test
+    public void unmeasuredTabsUseTheFallbackWidth() {
+        assertTrue(mIndex.hasUnknownWidths());
+        assertEquals(FALLBACK_WIDTH * 3, mIndex.getLeft(3));
+        assertEquals(FALLBACK_WIDTH * 5, mIndex.getTotalWidth());
+    }
+
+    @Test
+    public void unmeasuredTabsAreAsWideAsTheAverageTab() {
+        mIndex.setWidth(0, 100);
+        mIndex.setWidth(1, 200);
+
+        assertEquals(150, mIndex.getEstimatedWidth());
+        assertEquals(300, mIndex.getLeft(2));
+        assertEquals(300 + 150 * 3, mIndex.getTotalWidth());
+        assertEquals(2, mIndex.findPositionAt(449));
+        assertEquals(3, mIndex.findPositionAt(450));
+    }
+
+    @Test
+    public void hiddenTabsTakeNoRoom() {
+        for (int i = 0; i < 5; i++) {
+            mIndex.setWidth(i, 100);
+        }
+        assertTrue(mIndex.setWidth(2, 0));
+
+        assertFalse(mIndex.hasUnknownWidths());
+        assertTrue(mIndex.isWidthKnown(2));
+        assertEquals(0, mIndex.getWidth(2));
+        assertEquals(200, mIndex.getLeft(3));
+        assertEquals(400, mIndex.getTotalWidth());
+        // The hidden tab is never the one found at an x
+        assertEquals(1, mIndex.findPositionAt(199));
+        assertEquals(3, mIndex.findPositionAt(200));
+    }
+
+    @Test
+    public void hiddenTabsAreLeftOutOfTheEstimate() {
+        mIndex.setWidth(0, 100);
+        mIndex.setWidth(1, 0);
+
+        assertEquals(100, mIndex.getEstimatedWidth());
+        assertEquals(100 + 100 * 3, mIndex.getTotalWidth());
+
+        // Shown again, the tab is measured like any other
+        mIndex.setWidth(1, 120);
+        assertEquals(110, mIndex.getEstimatedWidth());
+    }
+
+    @Test
+    public void invalidatedWidthIsEstimated() {
+        for (int i = 0; i < 5; i++) {
+            mIndex.setWidth(i, 100 + i * 10);
+        }
+        assertTrue(mIndex.invalidateWidth(4));
+        assertFalse(mIndex.invalidateWidth(4));
+
+        assertTrue(mIndex.hasUnknownWidths());
+        assertEquals(115, mIndex.getWidth(4));
+        assertEquals(460 + 115, mIndex.getTotalWidth());
+    }
+
+    @Test
+    public void insertAndRemoveShiftTheWidths() {
+        for (int i = 0; i < 5; i++) {
+            mIndex.setWidth(i, 100);
+        }
+        mIndex.insert(1);
+        assertFalse(mIndex.isWidthKnown(1));
+        assertEquals(100, mIndex.getLeft(1));
+        assertEquals(600, mIndex.getTotalWidth());
+
+        mIndex.setWidth(1, 40);
+        assertEquals(140, mIndex.getLeft(2));
+
+        mIndex.remove(0, 2);
+        assertEquals(4, mIndex.size());
+        assertEquals(0, mIndex.getLeft(0));
+        assertEquals(400, mIndex.getTotalWidth());
+        assertFalse(mIndex.hasUnknownWidths());
+    }
+}
@@ -0,0 +1,195 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+
+import android.support.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Loads icons through a loader with a small cache, and delivers decodes after their tab moved
+ * on to another icon.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TabIconLoaderTest {
+
+    private static final int ICON_SIZE = 48;
+    private static final int[] ICONS = {
+            android.R.drawable.ic_menu_add,
+            android.R.drawable.ic_menu_delete,
+            android.R.drawable.ic_menu_edit,
+    };
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private Activity mActivity;
+    private TvTabLayout mLayout;
+    private final List<Runnable> mQueued = new ArrayList<>();
+    private final Executor mQueueingExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mQueued.add(command);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void leastRecentlyUsedIconsAreEvictedAtCapacity() {
+        // Room for two of the icons
+        final int iconBytes = loadIconBytes();
+        final TabIconLoader loader = new TabIconLoader(2 * iconBytes, DIRECT_EXECUTOR);
+
+        assertLoaded(loader, ICONS[0]);
+        assertLoaded(loader, ICONS[1]);
+        assertEquals(0, loader.getEvictionCount());
+        assertEquals(2 * iconBytes, loader.size());
+
+        // Touch the first icon, so that the second one is the eldest
+        assertCached(loader, ICONS[0]);
+        assertLoaded(loader, ICONS[2]);
+        assertEquals(1, loader.getEvictionCount());
+        assertTrue(loader.size() <= loader.maxSize());
+
+        assertCached(loader, ICONS[0]);
+        assertCached(loader, ICONS[2]);
+        final int misses = loader.getMissCount();
+        assertLoaded(loader, ICONS[1]);
+        assertEquals(misses + 1, loader.getMissCount());
+        assertEquals(2, loader.getEvictionCount());
+        assertTrue(loader.size() <= loader.maxSize());
+    }
+
+    @Test
+    public void staleDecodeDoesNotReplaceAReboundIcon() {
+        final TvTabLayout.Tab tab = newLoadingTab();
+        tab.setIcon(ICONS[0]);
+        assertEquals(1, mQueued.size());
+
+        final Drawable rebound = new ColorDrawable();
+        tab.setIcon(rebound);
+        runQueued();
+        assertSame(rebound, tab.getIcon());
+    }
+
+    @Test
+    public void staleDecodeDoesNotReplaceANewerIcon() {
+        final TvTabLayout.Tab tab = newLoadingTab();
+        tab.setIcon(ICONS[0]);
+        tab.setIcon(ICONS[1]);
+        assertEquals(2, mQueued.size());
+
+        // The newer icon is decoded first, the stale one finishes after it
+        mQueued.remove(1).run();
+        idle();
+        final Drawable newer = tab.getIcon();
+        assertNotNull(newer);
+        runQueued();
+        assertSame(newer, tab.getIcon());
+    }
+
+    @Test
+    public void removedTabsIgnoreTheirDecode() {
+        final TvTabLayout.Tab tab = newLoadingTab();
+        tab.setIcon(ICONS[0]);
+        final Drawable placeholder = tab.getIcon();
+        assertNotNull(placeholder);
+
+        mLayout.removeTab(tab);
+        // A tab from the pool must not pick up the icon of the removed one
+        final TvTabLayout.Tab reused = mLayout.newTab().setText("Reused");
+        mLayout.addTab(reused);
+        runQueued();
+        assertNull(reused.getIcon());
+    }
+
+    /**
+     * Returns the cache bytes taken by one of the icons.
+     */
+    private int loadIconBytes() {
+        final TabIconLoader loader = new TabIconLoader(Integer.MAX_VALUE, DIRECT_EXECUTOR);
+        assertLoaded(loader, ICONS[0]);
+        assertTrue(loader.size() > 0);
+        return loader.size();
+    }
+
+    private void assertLoaded(TabIconLoader loader, int resId) {
+        final IconCallback callback = new IconCallback();
+        assertNotNull(loader.load(mActivity, resId, ICON_SIZE, ICON_SIZE, callback));
+        assertEquals(0, callback.mCalls);
+        idle();
+        assertEquals(1, callback.mCalls);
+        assertNotNull(callback.mIcon);
+    }
+
+    private void assertCached(TabIconLoader loader, int resId) {
+        final IconCallback callback = new IconCallback();
+        final int hits = loader.getHitCount();
+        assertNull(loader.load(mActivity, resId, ICON_SIZE, ICON_SIZE, callback));
+        assertEquals(1, callback.mCalls);
+        assertEquals(hits + 1, loader.getHitCount());
+    }
+
+    private TvTabLayout.Tab newLoadingTab() {
+        mLayout = new TvTabLayout(mActivity);
+        final TabIconLoader loader = new TabIconLoader(Integer.MAX_VALUE, mQueueingExecutor);
+        loader.setPlaceholder(new ColorDrawable());
+        mLayout.setTabIconLoader(loader);
+        final TvTabLayout.Tab tab = mLayout.newTab().setText("Tab");
+        mLayout.addTab(tab);
+        mActivity.setContentView(mLayout);
+        idle();
+        return tab;
+    }
+
+    private void runQueued() {
+        for (Runnable request : mQueued) {
+            request.run();
+        }
+        mQueued.clear();
+        idle();
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static final class IconCallback implements TabIconLoader.Callback {
+        int mCalls;
+        Drawable mIcon;
+
+        @Override
+        public void onIconLoaded(@Nullable Drawable icon) {
+            mCalls++;
+            mIcon = icon;
+        }
+    }
+}
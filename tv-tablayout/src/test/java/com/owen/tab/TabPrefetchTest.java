@@ -0,0 +1,169 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.KeyEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Feeds synthetic D-pad key events to the layout and checks the predictions reported to an
+ * {@link TvTabLayout.OnTabPrefetchListener}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TabPrefetchTest {
+
+    private static final int TAB_COUNT = 20;
+    // Interval between auto-repeated key events
+    private static final long REPEAT_INTERVAL = 50;
+
+    private TvTabLayout mLayout;
+    private final List<String> mEvents = new ArrayList<>();
+    private long mEventTime = 1000;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(activity);
+        for (int i = 0; i < TAB_COUNT; i++) {
+            mLayout.addTab(mLayout.newTab().setText("Tab " + i));
+        }
+        activity.setContentView(mLayout);
+        // Lets the posted selection of the first tab through before selecting another one
+        idleFor(0);
+        mLayout.getTabAt(5).select();
+        idleFor(0);
+
+        mLayout.addOnTabPrefetchListener(new TvTabLayout.OnTabPrefetchListener() {
+            @Override
+            public void onTabPrefetch(TvTabLayout.Tab tab, int rank) {
+                mEvents.add("prefetch " + tab.getText() + " @" + rank);
+            }
+
+            @Override
+            public void onTabPrefetchCancelled(TvTabLayout.Tab tab) {
+                mEvents.add("cancel " + tab.getText());
+            }
+        });
+    }
+
+    @Test
+    public void pressPredictsTheTabsAhead() {
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+
+        assertEquals(6, mLayout.getSelectedTabPosition());
+        assertEquals(Arrays.asList("prefetch Tab 7 @0", "prefetch Tab 8 @1"), mEvents);
+    }
+
+    @Test
+    public void turningAroundCancelsThePrediction() {
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+        mEvents.clear();
+
+        press(KeyEvent.KEYCODE_DPAD_LEFT);
+        assertEquals(5, mLayout.getSelectedTabPosition());
+        assertEquals(Arrays.asList("cancel Tab 7", "cancel Tab 8",
+                "prefetch Tab 4 @0", "prefetch Tab 3 @1"), mEvents);
+    }
+
+    @Test
+    public void dwellingPredictsBothSides() {
+        mLayout.setPrefetchDwellTime(300);
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+        mEvents.clear();
+
+        idleFor(200);
+        assertEquals(0, mEvents.size());
+
+        idleFor(100);
+        assertEquals(Arrays.asList("prefetch Tab 5 @1", "prefetch Tab 4 @3"), mEvents);
+    }
+
+    @Test
+    public void heldKeyPredictsByTheStepOfTheNextRepeat() {
+        // The step is 1 + the repeat count, up to 3 tabs
+        mLayout.setKeyRepeatPolicy(new TvTabLayout.KeyRepeatPolicy()
+                .setCoalesceRepeatCount(1)
+                .setAcceleration(0, 1, 3));
+        final long downTime = mEventTime;
+
+        keyDown(KeyEvent.KEYCODE_DPAD_RIGHT, downTime, 0);
+        assertEquals(6, mLayout.getSelectedTabPosition());
+        // The next repeat moves 2 tabs
+        assertEquals(Arrays.asList("prefetch Tab 8 @0", "prefetch Tab 10 @1"), mEvents);
+        mEvents.clear();
+
+        keyDown(KeyEvent.KEYCODE_DPAD_RIGHT, downTime, 1);
+        // Coalesced, only the highlight moved to tab 8, and the next repeat moves 3 tabs
+        assertEquals(6, mLayout.getSelectedTabPosition());
+        assertEquals(Arrays.asList("cancel Tab 10", "prefetch Tab 11 @0", "prefetch Tab 14 @1"),
+                mEvents);
+        mEvents.clear();
+
+        keyUp(KeyEvent.KEYCODE_DPAD_RIGHT, downTime);
+        assertEquals(8, mLayout.getSelectedTabPosition());
+        assertEquals(0, mEvents.size());
+    }
+
+    @Test
+    public void removedTabsAreCancelled() {
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+        mEvents.clear();
+
+        mLayout.removeTabAt(7);
+        assertEquals(Arrays.asList("cancel Tab 7"), mEvents);
+        mEvents.clear();
+
+        // Recycles the removed tab, which must not be mistaken for the one predicted before
+        mLayout.addTab(mLayout.newTab().setText("New tab"));
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+        assertEquals(7, mLayout.getSelectedTabPosition());
+        assertEquals(Arrays.asList("prefetch Tab 9 @0", "prefetch Tab 10 @1"), mEvents);
+    }
+
+    @Test
+    public void noPredictionPastTheEnd() {
+        mLayout.getTabAt(TAB_COUNT - 2).select();
+        idleFor(0);
+
+        press(KeyEvent.KEYCODE_DPAD_RIGHT);
+        assertEquals(TAB_COUNT - 1, mLayout.getSelectedTabPosition());
+        assertEquals(0, mEvents.size());
+    }
+
+    private void press(int keyCode) {
+        final long downTime = mEventTime;
+        keyDown(keyCode, downTime, 0);
+        keyUp(keyCode, downTime);
+    }
+
+    private void keyDown(int keyCode, long downTime, int repeatCount) {
+        mLayout.dispatchKeyEvent(new KeyEvent(downTime, mEventTime, KeyEvent.ACTION_DOWN,
+                keyCode, repeatCount));
+        mEventTime += REPEAT_INTERVAL;
+    }
+
+    private void keyUp(int keyCode, long downTime) {
+        mLayout.dispatchKeyEvent(new KeyEvent(downTime, mEventTime, KeyEvent.ACTION_UP,
+                keyCode, 0));
+        mEventTime += REPEAT_INTERVAL;
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,201 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Runs the selection animation of a tab view on a {@link ManualFrameClock}, checks when the view
+ * holds a hardware layer, and measures the allocations and the time of its frames.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TabSelectionEffectTest {
+
+    private static final int DURATION = 300;
+    private static final float SELECTED_SCALE = 1.2f;
+    private static final int MAX_FRAMES = 600;
+    private static final int SELECTIONS = 1000;
+    private static final int WARM_UP_ROUNDS = 10;
+    private static final int RUNS = 50;
+    // Holding the layer only costs a layer type switch when the animation starts and ends
+    private static final double MAX_LAYER_OVERHEAD = 1.5;
+
+    private final ManualFrameClock mClock = new ManualFrameClock();
+    private FrameTicker mTicker;
+    private TvTabLayout.TabView mTabView;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mTicker = new FrameTicker(mClock, new View(activity));
+        final TvTabLayout layout = new TvTabLayout(activity) {
+            @Override
+            FrameTicker getFrameTicker() {
+                return mTicker;
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            layout.addTab(layout.newTab().setText("Tab " + i));
+        }
+        activity.setContentView(layout);
+        shadowOf(Looper.getMainLooper()).idle();
+        mTabView = (TvTabLayout.TabView) ((ViewGroup) layout.getChildAt(0)).getChildAt(1);
+    }
+
+    @Test
+    public void layerIsHeldWhileAnimating() {
+        mTabView.animateSelectionState(SELECTED_SCALE, 0, AnimationUtils.LINEAR_INTERPOLATOR,
+                DURATION, true);
+        assertEquals(ViewCompat.LAYER_TYPE_HARDWARE, ViewCompat.getLayerType(mTabView));
+
+        mClock.runUntilIdle(MAX_FRAMES);
+        assertEquals(ViewCompat.LAYER_TYPE_NONE, ViewCompat.getLayerType(mTabView));
+        assertEquals(SELECTED_SCALE, mTabView.getScaleX(), 0f);
+    }
+
+    @Test
+    public void retargetingKeepsTheLayer() {
+        mTabView.animateSelectionState(SELECTED_SCALE, 0, AnimationUtils.LINEAR_INTERPOLATOR,
+                DURATION, true);
+        mClock.step();
+        mClock.step();
+        mClock.step();
+
+        mTabView.animateSelectionState(1f, 0, AnimationUtils.LINEAR_INTERPOLATOR, DURATION,
+                true);
+        assertEquals(ViewCompat.LAYER_TYPE_HARDWARE, ViewCompat.getLayerType(mTabView));
+
+        mClock.runUntilIdle(MAX_FRAMES);
+        assertEquals(ViewCompat.LAYER_TYPE_NONE, ViewCompat.getLayerType(mTabView));
+        assertEquals(1f, mTabView.getScaleX(), 0f);
+    }
+
+    @Test
+    public void animatingWithoutLayer() {
+        mTabView.animateSelectionState(SELECTED_SCALE, 0, AnimationUtils.LINEAR_INTERPOLATOR,
+                DURATION, false);
+        assertEquals(ViewCompat.LAYER_TYPE_NONE, ViewCompat.getLayerType(mTabView));
+        mClock.runUntilIdle(MAX_FRAMES);
+        assertFalse(mClock.hasPendingCallbacks());
+    }
+
+    @Test
+    public void resetReleasesTheLayer() {
+        mTabView.animateSelectionState(SELECTED_SCALE, 0, AnimationUtils.LINEAR_INTERPOLATOR,
+                DURATION, true);
+        mClock.step();
+
+        mTabView.resetSelectionState();
+        assertEquals(ViewCompat.LAYER_TYPE_NONE, ViewCompat.getLayerType(mTabView));
+        assertEquals(1f, mTabView.getScaleX(), 0f);
+    }
+
+    @Test
+    public void retargetedSelectionsAllocateNothing() {
+        final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+        assumeTrue(threadBean != null);
+
+        // Let class loading, list growth and compilation happen before counting
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            select(SELECTIONS, true);
+        }
+
+        // Reading the counter may allocate a little by itself
+        long overhead = 0;
+        for (int i = 0; i < 3; i++) {
+            final long before = allocatedBytes(threadBean);
+            overhead = Math.max(overhead, allocatedBytes(threadBean) - before);
+        }
+
+        final long before = allocatedBytes(threadBean);
+        select(SELECTIONS, true);
+        final long allocated = allocatedBytes(threadBean) - before;
+
+        // The runtime itself may allocate a few bytes once in a while, but any allocation made
+        // per selection adds up to at least a byte per selection
+        assertTrue("Allocated " + (allocated - overhead) + " bytes over " + SELECTIONS
+                + " selections", allocated - overhead < SELECTIONS);
+    }
+
+    @Test
+    public void layeredFramesAreNotSlower() {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            select(SELECTIONS, true);
+            select(SELECTIONS, false);
+        }
+
+        // On the CPU only: the layer itself is drawn by the GPU
+        long layered = Long.MAX_VALUE;
+        long unlayered = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            // Alternate which goes first, so neither always runs right after a collection
+            if (run % 2 == 0) {
+                layered = Math.min(layered, timeSelections(true));
+                unlayered = Math.min(unlayered, timeSelections(false));
+            } else {
+                unlayered = Math.min(unlayered, timeSelections(false));
+                layered = Math.min(layered, timeSelections(true));
+            }
+        }
+
+        // Two frames per selection
+        assertTrue(String.format(Locale.US, "A frame took %.0fns with a layer, %.0fns without",
+                (double) layered / (SELECTIONS * 2), (double) unlayered / (SELECTIONS * 2)),
+                layered <= unlayered * MAX_LAYER_OVERHEAD);
+    }
+
+    private long timeSelections(boolean withLayer) {
+        final long start = System.nanoTime();
+        select(SELECTIONS, withLayer);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Selects and unselects the tab, each time two frames into the animation the other way.
+     */
+    private void select(int count, boolean withLayer) {
+        for (int i = 0; i < count; i++) {
+            mTabView.animateSelectionState(i % 2 == 0 ? SELECTED_SCALE : 1f, 0,
+                    AnimationUtils.FAST_OUT_SLOW_IN_INTERPOLATOR, DURATION, withLayer);
+            mClock.step();
+            mClock.step();
+        }
+        mTabView.resetSelectionState();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threadBean) {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,117 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.graphics.Typeface;
+import android.os.Looper;
+import android.view.View;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Measures a tab view twice with the same specs and checks when the second pass is skipped.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TabViewMeasureCacheTest {
+
+    private static final int WIDTH_SPEC = View.MeasureSpec.makeMeasureSpec(0,
+            View.MeasureSpec.UNSPECIFIED);
+    private static final int HEIGHT_SPEC = View.MeasureSpec.makeMeasureSpec(200,
+            View.MeasureSpec.AT_MOST);
+
+    private TvTabLayout.Tab mTab;
+    private TvTabLayout.TabView mTabView;
+    private TextView mTextView;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final TvTabLayout layout = new TvTabLayout(activity);
+        layout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        mTab = layout.newTab().setText("Tab");
+        layout.addTab(mTab);
+        layout.addTab(layout.newTab().setText("Other"));
+        activity.setContentView(layout);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        mTabView = mTab.getTabView();
+        for (int i = 0; i < mTabView.getChildCount(); i++) {
+            if (mTabView.getChildAt(i) instanceof TextView) {
+                mTextView = (TextView) mTabView.getChildAt(i);
+            }
+        }
+        assertNotNull(mTextView);
+        measure();
+    }
+
+    @Test
+    public void unchangedContentIsNotMeasuredAgain() {
+        final int width = mTabView.getMeasuredWidth();
+        scrambleTextMeasurement();
+
+        measure();
+        assertEquals(width, mTabView.getMeasuredWidth());
+        // The children were left alone
+        assertEquals(1, mTextView.getMeasuredWidth());
+    }
+
+    @Test
+    public void textChangesAreMeasured() {
+        scrambleTextMeasurement();
+
+        mTab.setText("Another tab");
+        measure();
+        assertNotEquals(1, mTextView.getMeasuredWidth());
+    }
+
+    @Test
+    public void typefaceChangesAreMeasured() {
+        scrambleTextMeasurement();
+
+        mTextView.setTypeface(Typeface.DEFAULT_BOLD);
+        measure();
+        assertNotEquals(1, mTextView.getMeasuredWidth());
+    }
+
+    @Test
+    public void textAppearanceChangesAreMeasured() {
+        scrambleTextMeasurement();
+
+        mTextView.setTextAppearance(android.R.style.TextAppearance_Large);
+        measure();
+        assertNotEquals(1, mTextView.getMeasuredWidth());
+    }
+
+    @Test
+    public void selectionChangesAreMeasured() {
+        scrambleTextMeasurement();
+
+        mTabView.setSelected(!mTabView.isSelected());
+        measure();
+        assertNotEquals(1, mTextView.getMeasuredWidth());
+    }
+
+    /**
+     * Leaves a bogus size on the label, which only a real measure pass of the tab replaces.
+     */
+    private void scrambleTextMeasurement() {
+        mTextView.measure(View.MeasureSpec.makeMeasureSpec(1, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1, View.MeasureSpec.EXACTLY));
+    }
+
+    private void measure() {
+        mTabView.forceLayout();
+        mTabView.measure(WIDTH_SPEC, HEIGHT_SPEC);
+    }
+}
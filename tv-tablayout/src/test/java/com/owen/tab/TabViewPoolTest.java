@@ -0,0 +1,123 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.widget.LinearLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Recycles tab views through a pool, alone and shared by two layouts.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TabViewPoolTest {
+
+    private static final int TYPE_A = 1;
+    private static final int TYPE_B = 2;
+
+    private Activity mActivity;
+    private TabViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPool = new TabViewPool(mActivity);
+    }
+
+    @Test
+    public void viewsAreHandedOutPerViewType() {
+        final TvTabLayout.TabView a = new TvTabLayout.TabView(mActivity);
+        final TvTabLayout.TabView b = new TvTabLayout.TabView(mActivity);
+        assertTrue(mPool.release(a, TYPE_A));
+        assertTrue(mPool.release(b, TYPE_B));
+        assertEquals(1, mPool.getPooledViewCount(TYPE_A));
+        assertEquals(1, mPool.getPooledViewCount(TYPE_B));
+
+        assertNull(mPool.acquire(TabViewPool.DEFAULT_VIEW_TYPE));
+        assertSame(b, mPool.acquire(TYPE_B));
+        assertNull(mPool.acquire(TYPE_B));
+        assertSame(a, mPool.acquire(TYPE_A));
+        assertNull(mPool.acquire(TYPE_A));
+    }
+
+    @Test
+    public void viewsArePooledOnce() {
+        final TvTabLayout.TabView view = new TvTabLayout.TabView(mActivity);
+        assertTrue(mPool.release(view, TYPE_A));
+        assertFalse(mPool.release(view, TYPE_A));
+
+        assertSame(view, mPool.acquire(TYPE_A));
+        assertNull(mPool.acquire(TYPE_A));
+    }
+
+    @Test
+    public void attachedViewsAreNotPooled() {
+        final TvTabLayout.TabView view = new TvTabLayout.TabView(mActivity);
+        new LinearLayout(mActivity).addView(view);
+
+        assertFalse(mPool.release(view, TYPE_A));
+        assertEquals(0, mPool.getPooledViewCount(TYPE_A));
+    }
+
+    @Test
+    public void sharedPoolNeverHandsAViewToTwoLayouts() {
+        final TvTabLayout first = new TvTabLayout(mActivity);
+        final TvTabLayout second = new TvTabLayout(mActivity);
+        first.setTabViewPool(mPool);
+        second.setTabViewPool(mPool);
+        final LinearLayout root = new LinearLayout(mActivity);
+        root.addView(first);
+        root.addView(second);
+        mActivity.setContentView(root);
+
+        addTabs(first, 5);
+        first.removeAllTabs();
+        assertEquals(5, mPool.getPooledViewCount(TabViewPool.DEFAULT_VIEW_TYPE));
+
+        // Both layouts take from the pool, the first one also gets new views
+        addTabs(second, 3);
+        addTabs(first, 4);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(0, mPool.getPooledViewCount(TabViewPool.DEFAULT_VIEW_TYPE));
+
+        final Map<TvTabLayout.TabView, TvTabLayout> owners = new IdentityHashMap<>();
+        assertOwnViews(first, owners);
+        assertOwnViews(second, owners);
+        assertEquals(first.getTabCount() + second.getTabCount(), owners.size());
+    }
+
+    private static void addTabs(TvTabLayout layout, int count) {
+        for (int i = 0; i < count; i++) {
+            layout.addTab(layout.newTab().setText("Tab " + i));
+        }
+    }
+
+    /**
+     * Checks that every tab view of {@code layout} is shown by it, and by no other layout.
+     */
+    private static void assertOwnViews(TvTabLayout layout,
+            Map<TvTabLayout.TabView, TvTabLayout> owners) {
+        for (int i = 0; i < layout.getTabCount(); i++) {
+            final TvTabLayout.TabView view = layout.getTabAt(i).getTabView();
+            assertSame(layout.getChildAt(0), view.getParent());
+            final TvTabLayout owner = owners.put(view, layout);
+            assertTrue("Tab view shown by two layouts", owner == null);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.owen.tab;
+
+import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.text.TextPaint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.LooperMode;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Fills the pools and caches of a layout, trims it at each level and checks what was released
+ * and what {@link TvTabLayout#getTrimStats()} reports.
+ */
+@RunWith(RobolectricTestRunner.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TrimMemoryTest {
+
+    private static final int POOLED_VIEWS = 4;
+    private static final int TEXT_ENTRIES = 8;
+    private static final int[] ICONS = {
+            android.R.drawable.ic_menu_add,
+            android.R.drawable.ic_menu_delete,
+    };
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private Activity mActivity;
+    private TvTabLayout mLayout;
+    private TabViewPool mPool;
+    private TextMeasureCache mTextCache;
+    private TabIconLoader mIconLoader;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mLayout = new TvTabLayout(mActivity);
+        mLayout.setTabScrollMode(TvTabLayout.MODE_SCROLLABLE);
+        mPool = new TabViewPool(mActivity);
+        mLayout.setTabViewPool(mPool);
+        mTextCache = new TextMeasureCache(TEXT_ENTRIES * 2);
+        mLayout.setTextMeasureCache(mTextCache);
+        mIconLoader = new TabIconLoader(Integer.MAX_VALUE, DIRECT_EXECUTOR);
+        mLayout.setTabIconLoader(mIconLoader);
+    }
+
+    @Test
+    public void moderateHalvesTheViewPool() {
+        show(3);
+        fillCaches();
+        final int iconBytes = mIconLoader.size();
+
+        assertEquals(0, mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(POOLED_VIEWS / 2, getPooledViewCount());
+        assertEquals(iconBytes, mIconLoader.size());
+        assertEquals(TEXT_ENTRIES, mTextCache.size());
+        assertTrimStats(1, 0, POOLED_VIEWS / 2, 0);
+    }
+
+    @Test
+    public void runningLowEmptiesThePoolsAndHalvesTheCaches() {
+        show(3);
+        fillCaches();
+        final int iconBytes = mIconLoader.size();
+        final TvTabLayout.Tab removed = mLayout.getTabAt(2);
+        mLayout.removeTab(removed);
+        final int pooledViews = getPooledViewCount();
+
+        final long bytesFreed = mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(0, getPooledViewCount());
+        assertEquals(iconBytes / 2, mIconLoader.size());
+        assertEquals(iconBytes / 2, bytesFreed);
+        assertEquals(TEXT_ENTRIES / 2, mTextCache.size());
+        assertTrimStats(1, bytesFreed, pooledViews, TEXT_ENTRIES / 2);
+        // The tab pool was drained, so the removed tab is not handed out again
+        assertNotSame(removed, mLayout.newTab());
+    }
+
+    @Test
+    public void runningLowDropsTheLabelsOfOffscreenFlatTabs() {
+        mLayout.setTabFlatRenderEnabled(true);
+        show(100);
+        // Draw the labels at both ends of the strip
+        draw();
+        scrollTo(mLayout.getChildAt(0).getWidth());
+        draw();
+        scrollTo(0);
+        draw();
+        final int labels = countFlatTextLayouts();
+        final int textEntries = mTextCache.size();
+
+        mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        final int keptLabels = countFlatTextLayouts();
+        assertTrue(keptLabels > 0);
+        assertTrue(keptLabels < labels);
+        final int dropped = textEntries - mTextCache.size() + labels - keptLabels;
+        assertEquals(dropped, mLayout.getTrimStats().textEntriesDropped);
+    }
+
+    @Test
+    public void criticalClearsTheCachesAndUnbindsOffscreenTabs() {
+        mLayout.setTabVirtualizationEnabled(true);
+        show(100);
+        scrollTo(mLayout.getChildAt(0).getWidth() / 2);
+        fillCaches();
+        final int iconBytes = mIconLoader.size();
+        final int boundViews = getBoundViewCount();
+
+        final long bytesFreed = mLayout.trimMemory(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        final int unbound = boundViews - getBoundViewCount();
+        assertTrue(unbound > 0);
+        assertTrue(getBoundViewCount() > 0);
+        assertEquals(0, getPooledViewCount());
+        assertEquals(0, mIconLoader.size());
+        assertEquals(iconBytes, bytesFreed);
+        assertEquals(0, mTextCache.size());
+        // Each view counted once, whether it was unbound or pooled already
+        assertTrimStats(1, bytesFreed, unbound + POOLED_VIEWS, TEXT_ENTRIES);
+    }
+
+    @Test
+    public void uiHiddenDropsTheStaticLayer() {
+        mLayout.setIndicatorBackgroundHeight(10);
+        show(3);
+        draw();
+        final Bitmap layer = getStaticLayer();
+        assertNotNull(layer);
+        final int layerBytes = layer.getByteCount();
+        final int textEntries = mTextCache.size();
+
+        assertEquals(layerBytes, mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertNull(getStaticLayer());
+        assertTrimStats(1, layerBytes, 0, textEntries);
+
+        // Nothing is left to release, which is counted as well
+        assertEquals(0, mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+        assertTrimStats(2, layerBytes, 0, textEntries);
+    }
+
+    @Test
+    public void levelsBelowModerateAreIgnored() {
+        show(3);
+        fillCaches();
+
+        assertEquals(0, mLayout.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE - 1));
+        assertEquals(POOLED_VIEWS, getPooledViewCount());
+        assertTrimStats(0, 0, 0, 0);
+    }
+
+    private void show(int tabCount) {
+        for (int i = 0; i < tabCount; i++) {
+            mLayout.addTab(mLayout.newTab().setText("Tab " + i));
+        }
+        mActivity.setContentView(mLayout);
+        idle();
+    }
+
+    /**
+     * Pools {@link #POOLED_VIEWS} tab views, measures {@link #TEXT_ENTRIES} labels and loads the
+     * icons, on top of what the layout holds already.
+     */
+    private void fillCaches() {
+        mPool.clear();
+        for (int i = 0; i < POOLED_VIEWS; i++) {
+            assertTrue(mPool.release(new TvTabLayout.TabView(mActivity),
+                    TabViewPool.DEFAULT_VIEW_TYPE));
+        }
+        mTextCache.clear();
+        final TextPaint paint = new TextPaint();
+        for (int i = 0; i < TEXT_ENTRIES; i++) {
+            mTextCache.measure("Label " + i, paint, Integer.MAX_VALUE);
+        }
+        for (int resId : ICONS) {
+            assertNotNull(mIconLoader.load(mActivity, resId, 48, 48, new TabIconLoader.Callback() {
+                @Override
+                public void onIconLoaded(@Nullable Drawable icon) {
+                }
+            }));
+        }
+        idle();
+        assertTrue(mIconLoader.size() > 0);
+    }
+
+    private void assertTrimStats(int trimCount, long bytesFreed, int tabViewsReleased,
+            int textEntriesDropped) {
+        final TvTabLayout.TrimStats stats = mLayout.getTrimStats();
+        assertEquals(trimCount, stats.trimCount);
+        assertEquals(bytesFreed, stats.bytesFreed);
+        assertEquals(tabViewsReleased, stats.tabViewsReleased);
+        assertEquals(textEntriesDropped, stats.textEntriesDropped);
+    }
+
+    private int getPooledViewCount() {
+        return mPool.getPooledViewCount(TabViewPool.DEFAULT_VIEW_TYPE);
+    }
+
+    private int getBoundViewCount() {
+        return mLayout.mTabStrip.getChildCount();
+    }
+
+    private int countFlatTextLayouts() {
+        int count = 0;
+        for (int i = 0; i < mLayout.getTabCount(); i++) {
+            if (get(mLayout.getTabAt(i), TvTabLayout.Tab.class, "mFlatTextLayout") != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Bitmap getStaticLayer() {
+        return (Bitmap) get(mLayout.mTabStrip, TvTabLayout.SlidingTabStrip.class, "mStaticLayer");
+    }
+
+    /**
+     * Draws the strip. Robolectric's {@link android.view.View#draw(Canvas)} does not call
+     * {@code onDraw()}, so the flat tabs are drawn separately.
+     */
+    private void draw() {
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(mLayout.getWidth(),
+                mLayout.getHeight(), Bitmap.Config.ARGB_8888));
+        mLayout.mTabStrip.draw(canvas);
+        mLayout.mTabStrip.onDraw(canvas);
+    }
+
+    /**
+     * Scrolls the layout. Robolectric calls {@code onScrollChanged()} before it moves the
+     * scroll position, so it is called again once the position is set.
+     */
+    private void scrollTo(int x) {
+        final int oldX = mLayout.getScrollX();
+        mLayout.scrollTo(x, 0);
+        mLayout.onScrollChanged(mLayout.getScrollX(), 0, oldX, 0);
+        idle();
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static Object get(Object target, Class<?> type, String name) {
+        try {
+            final Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.owen.tab;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ValueAnimatorCompatImplJellyBeanTest {
+
+    private static final float DELTA = 1e-4f;
+
+    private ManualFrameClock mClock;
+    private ValueAnimatorCompat mAnimator;
+    private RecordingListener mListener;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualFrameClock();
+        mAnimator = new ValueAnimatorCompat(new ValueAnimatorCompatImplJellyBean(mClock));
+        mAnimator.setInterpolator(AnimationUtils.LINEAR_INTERPOLATOR);
+        mAnimator.setDuration(100);
+        mAnimator.setIntValues(0, 200);
+        mListener = new RecordingListener();
+        mAnimator.setListener(mListener);
+        mAnimator.setUpdateListener(mListener);
+    }
+
+    @Test
+    public void fractionFollowsFrameTime() {
+        mAnimator.start();
+        assertTrue(mAnimator.isRunning());
+        assertEquals(1, mListener.mStarts);
+
+        // The first frame sets the start time
+        mClock.step();
+        assertEquals(0f, mAnimator.getAnimatedFraction(), DELTA);
+
+        mClock.stepMillis(25);
+        assertEquals(0.25f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(50, mAnimator.getAnimatedIntValue());
+
+        mClock.stepMillis(50);
+        assertEquals(0.75f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(150, mAnimator.getAnimatedIntValue());
+        assertEquals(3, mListener.mUpdates);
+
+        // A late frame clamps the fraction and finishes the animation
+        mClock.stepMillis(40);
+        assertEquals(1f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(200, mAnimator.getAnimatedIntValue());
+        assertFalse(mAnimator.isRunning());
+        assertEquals(1, mListener.mEnds);
+        assertEquals(0, mListener.mCancels);
+        assertFalse(mClock.hasPendingCallbacks());
+    }
+
+    @Test
+    public void startDelayHoldsTheFirstFrame() {
+        mAnimator.setStartDelay(50);
+        mAnimator.start();
+
+        mClock.step();
+        mClock.stepMillis(40);
+        assertEquals(0, mListener.mUpdates);
+        assertTrue(mClock.hasPendingCallbacks());
+
+        mClock.stepMillis(35);
+        assertEquals(0.25f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(1, mListener.mUpdates);
+    }
+
+    @Test
+    public void defaultInterpolatorIsAccelerateDecelerate() {
+        final ValueAnimatorCompat animator =
+                new ValueAnimatorCompat(new ValueAnimatorCompatImplJellyBean(mClock));
+        animator.setDuration(100);
+        animator.start();
+
+        mClock.step();
+        mClock.stepMillis(25);
+        assertEquals(AnimationUtils.ACCELERATE_DECELERATE_INTERPOLATOR.getInterpolation(0.25f),
+                animator.getAnimatedFraction(), DELTA);
+    }
+
+    @Test
+    public void endJumpsToTheEndValue() {
+        mAnimator.start();
+        mClock.step();
+        mClock.stepMillis(20);
+
+        mAnimator.end();
+        assertFalse(mAnimator.isRunning());
+        assertEquals(1f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(200, mAnimator.getAnimatedIntValue());
+        assertEquals(3, mListener.mUpdates);
+        assertEquals(1, mListener.mEnds);
+        assertEquals(0, mListener.mCancels);
+        assertFalse(mClock.hasPendingCallbacks());
+
+        // Ending a finished animation does nothing
+        mAnimator.end();
+        assertEquals(1, mListener.mEnds);
+    }
+
+    @Test
+    public void cancelStopsWhereItIs() {
+        mAnimator.start();
+        mClock.step();
+        mClock.stepMillis(20);
+
+        mAnimator.cancel();
+        assertFalse(mAnimator.isRunning());
+        assertEquals(1, mListener.mCancels);
+        assertEquals(1, mListener.mEnds);
+        assertFalse(mClock.hasPendingCallbacks());
+
+        mClock.stepMillis(100);
+        assertEquals(0.2f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(40, mAnimator.getAnimatedIntValue());
+        assertEquals(2, mListener.mUpdates);
+    }
+
+    @Test
+    public void restartAfterCancelTakesANewStartTime() {
+        mAnimator.start();
+        mClock.step();
+        mClock.stepMillis(60);
+        mAnimator.cancel();
+
+        mAnimator.setIntValues(200, 0);
+        mAnimator.start();
+        assertEquals(0f, mAnimator.getAnimatedFraction(), DELTA);
+        mClock.step();
+        mClock.stepMillis(50);
+        assertEquals(0.5f, mAnimator.getAnimatedFraction(), DELTA);
+        assertEquals(100, mAnimator.getAnimatedIntValue());
+    }
+
+    private static class RecordingListener implements ValueAnimatorCompat.AnimatorListener,
+            ValueAnimatorCompat.AnimatorUpdateListener {
+        int mStarts;
+        int mEnds;
+        int mCancels;
+        int mUpdates;
+
+        @Override
+        public void onAnimationStart(ValueAnimatorCompat animator) {
+            mStarts++;
+        }
+
+        @Override
+        public void onAnimationEnd(ValueAnimatorCompat animator) {
+            mEnds++;
+        }
+
+        @Override
+        public void onAnimationCancel(ValueAnimatorCompat animator) {
+            mCancels++;
+        }
+
+        @Override
+        public void onAnimationUpdate(ValueAnimatorCompat animator) {
+            mUpdates++;
+        }
+    }
+}